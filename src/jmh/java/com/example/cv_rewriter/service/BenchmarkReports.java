@@ -0,0 +1,30 @@
+package com.example.cv_rewriter.service;
+
+import java.util.Random;
+
+final class BenchmarkReports {
+    private static final String[] VOCABULARY = {
+            "experience", "leadership", "delivered", "Kubernetes", "stakeholders", "quantify", "impact",
+            "responsible", "for", "the", "migration", "of", "services", "and", "reduced", "latency", "by", "40%"
+    };
+
+    private BenchmarkReports() {
+    }
+
+    static String report(int lines) {
+        Random random = new Random(42);
+        StringBuilder report = new StringBuilder("# CV Feedback Summary\n");
+        for (int i = 0; i < lines; i++) {
+            if (i % 20 == 0) {
+                report.append("## Section ").append(i / 20 + 1).append('\n');
+            }
+            report.append(i % 3 == 0 ? "- " : "");
+            int words = 8 + random.nextInt(40);
+            for (int w = 0; w < words; w++) {
+                report.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(' ');
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+}
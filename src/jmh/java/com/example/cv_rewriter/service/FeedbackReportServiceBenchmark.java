@@ -0,0 +1,71 @@
+package com.example.cv_rewriter.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedbackReportServiceBenchmark {
+
+    // Report lines; roughly 1, 10 and 100 pages once rendered.
+    @Param({"40", "400", "4000"})
+    public int lines;
+
+    private FeedbackReportService feedbackReportService;
+    private String reportText;
+    private MockMultipartFile cvUpload;
+
+    private ThreadPoolTaskExecutor extractionExecutor;
+
+    @Setup
+    public void setUp() {
+        extractionExecutor = new ThreadPoolTaskExecutor();
+        extractionExecutor.setCorePoolSize(4);
+        extractionExecutor.setMaxPoolSize(4);
+        extractionExecutor.initialize();
+        // Page and character caps are lifted so the large fixture is read in full.
+        PdfTextExtractor pdfTextExtractor = new PdfTextExtractor(extractionExecutor, Integer.MAX_VALUE,
+                Integer.MAX_VALUE, 4, 4, Duration.ofMinutes(5));
+        feedbackReportService = new FeedbackReportService(List.of(pdfTextExtractor), DataSize.ofMegabytes(1));
+        reportText = BenchmarkReports.report(lines);
+        byte[] pdf = feedbackReportService.renderFeedbackReportPdf(reportText);
+        cvUpload = new MockMultipartFile("cvFile", "cv.pdf", "application/pdf", pdf);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractionExecutor.shutdown();
+    }
+
+    @Benchmark
+    public String extractCvText() {
+        return feedbackReportService.extractCvText(cvUpload);
+    }
+
+    @Benchmark
+    public void renderFeedbackReportPdf() {
+        feedbackReportService.renderFeedbackReportPdf(reportText, OutputStream.nullOutputStream());
+    }
+}
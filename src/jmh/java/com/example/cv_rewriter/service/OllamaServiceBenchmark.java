@@ -0,0 +1,113 @@
+package com.example.cv_rewriter.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Measures the client side of a generate call (serialization, pooling, routing, admission) against a
+// local stub, so model latency does not drown out regressions in our own code.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class OllamaServiceBenchmark {
+    private static final Map<String, Object> OPTIONS = Map.of("temperature", 0.4, "top_p", 0.9);
+
+    @Param({"40", "400"})
+    public int reportLines;
+
+    private HttpServer stubServer;
+    private ExecutorService stubExecutor;
+    private ExecutorService clientExecutor;
+    private OllamaService ollamaService;
+    private String prompt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        byte[] responseBody = objectMapper.writeValueAsBytes(Map.of(
+                "model", "benchmark",
+                "response", BenchmarkReports.report(reportLines),
+                "done", true));
+
+        stubExecutor = Executors.newFixedThreadPool(8);
+        stubServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        stubServer.createContext("/api/generate", exchange -> {
+            try (InputStream requestBody = exchange.getRequestBody()) {
+                requestBody.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, responseBody.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(responseBody);
+            }
+        });
+        stubServer.setExecutor(stubExecutor);
+        stubServer.start();
+
+        clientExecutor = Executors.newFixedThreadPool(4);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        String baseUrl = "http://" + stubServer.getAddress().getHostString() + ":" + stubServer.getAddress().getPort();
+        OllamaClient ollamaClient = new OllamaClient(httpClient, objectMapper, Duration.ofSeconds(30), Duration.ofSeconds(10));
+        OllamaEndpointPool endpointPool = new OllamaEndpointPool(ollamaClient, meterRegistry, baseUrl,
+                "least-outstanding", 1, 3, Duration.ofSeconds(30), Duration.ofSeconds(2));
+        OllamaConcurrencyLimiter limiter = new OllamaConcurrencyLimiter(meterRegistry, 16, "", 64,
+                Duration.ofSeconds(30), Duration.ofSeconds(15), "standard=1", "", "standard");
+        FeedbackReportCache feedbackReportCache = new FeedbackReportCache(null, meterRegistry, 1,
+                Duration.ofMinutes(1), false, Duration.ZERO);
+        ollamaService = new OllamaService(ollamaClient, endpointPool, limiter, feedbackReportCache,
+                new PipelineMetrics(meterRegistry), new CvTextNormalizer(2500, 800, List.of()), "benchmark", "5m", false, Duration.ZERO,
+                false, 256, Duration.ofSeconds(30), Duration.ofSeconds(15));
+
+        prompt = "Job Description:\n" + BenchmarkReports.report(20) + "\n\nCV:\n" + BenchmarkReports.report(80);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stubServer.stop(0);
+        stubExecutor.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public String generate() {
+        return ollamaService.generate(prompt, OPTIONS);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.cv_rewriter.service;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportLineWrapperBenchmark {
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final float FONT_SIZE = 12f;
+    private static final float MAX_WIDTH = 512f;
+    private static final String[] VOCABULARY = {
+            "experience", "leadership", "delivered", "Kubernetes", "stakeholders", "•", "quantify", "impact",
+            "responsible", "for", "the", "migration", "of", "services", "and", "reduced", "latency", "by", "40%"
+    };
+
+    @Param({"40", "400", "2000"})
+    public int wordsPerLine;
+
+    private List<String> lines;
+    private ReportLineWrapper wrapper;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            StringBuilder line = new StringBuilder(i % 3 == 0 ? "- " : "");
+            for (int w = 0; w < wordsPerLine; w++) {
+                line.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(' ');
+            }
+            lines.add(line.toString());
+        }
+        wrapper = new ReportLineWrapper(FONT, FONT_SIZE, MAX_WIDTH);
+    }
+
+    @Benchmark
+    public void glyphTable(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(wrapper.wrap(line));
+        }
+    }
+
+    @Benchmark
+    public void perCandidateStringWidth(Blackhole blackhole) throws IOException {
+        for (String line : lines) {
+            blackhole.consume(legacyWrap(line));
+        }
+    }
+
+    // The per-word candidate rebuild the renderer used before the glyph table, kept as the baseline.
+    private List<String> legacyWrap(String line) throws IOException {
+        List<String> wrapped = new ArrayList<>();
+        String body = line.stripTrailing();
+        String prefix = body.startsWith("- ") ? "- " : "";
+        body = body.substring(prefix.length()).stripLeading();
+
+        StringBuilder current = new StringBuilder(prefix);
+        for (String word : body.split("\\s+")) {
+            if (word.isBlank()) {
+                continue;
+            }
+            String candidate = current.length() == prefix.length() ? current + word : current + " " + word;
+            if (FONT.getStringWidth(legacySanitize(candidate)) / 1000 * FONT_SIZE > MAX_WIDTH
+                    && current.length() > prefix.length()) {
+                wrapped.add(current.toString());
+                current = new StringBuilder(prefix.isEmpty() ? "" : "  ").append(word);
+            } else {
+                if (current.length() > prefix.length()) {
+                    current.append(' ');
+                }
+                current.append(word);
+            }
+        }
+        wrapped.add(current.toString());
+        return wrapped;
+    }
+
+    private String legacySanitize(String text) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '•') {
+                builder.append('-');
+            } else if (c >= 32 && c <= 126) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
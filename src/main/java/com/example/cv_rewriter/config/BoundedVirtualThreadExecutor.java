@@ -0,0 +1,56 @@
+package com.example.cv_rewriter.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+
+// Runs each task on its own virtual thread with the same backpressure as a fixed pool and bounded queue: at most
+// maxConcurrency tasks run at once, up to queueCapacity more wait on their own (virtual) threads, and anything
+// beyond that is rejected straight away instead of blocking the submitter the way setConcurrencyLimit does.
+final class BoundedVirtualThreadExecutor extends SimpleAsyncTaskExecutor {
+
+    private final int maxTasks;
+    private final Semaphore admitted;
+    private final Semaphore running;
+
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency, int queueCapacity) {
+        super(threadNamePrefix);
+        setVirtualThreads(true);
+        this.maxTasks = Math.max(1, maxConcurrency) + Math.max(0, queueCapacity);
+        this.admitted = new Semaphore(maxTasks);
+        this.running = new Semaphore(Math.max(1, maxConcurrency));
+    }
+
+    @Override
+    protected void doExecute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException("Executor " + getThreadNamePrefix() + " already has " + maxTasks
+                    + " tasks running or queued");
+        }
+        try {
+            super.doExecute(() -> runWhenScheduled(task));
+        } catch (RuntimeException | Error exception) {
+            admitted.release();
+            throw exception;
+        }
+    }
+
+    private void runWhenScheduled(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException interruptedException) {
+            // Interrupted while queued (executor shutdown): the task never starts. It may be wrapped by a task
+            // decorator, so a Future from submit() cannot be reached here and is left to the shutdown.
+            admitted.release();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            running.release();
+            admitted.release();
+        }
+    }
+}
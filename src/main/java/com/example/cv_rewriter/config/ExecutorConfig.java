@@ -0,0 +1,115 @@
+package com.example.cv_rewriter.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    // Generation is admitted per user, so work handed off from a request must keep the caller's identity.
+    private static final TaskDecorator SECURITY_CONTEXT_PROPAGATION = DelegatingSecurityContextRunnable::new;
+
+    // With virtual threads each task gets its own thread; pool sizes and queue capacities still bound how many
+    // run and wait, and submissions beyond that are rejected exactly as a full pool would reject them.
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Bean
+    public AsyncTaskExecutor cvJobExecutor(
+            ThreadPoolTaskExecutorBuilder threadPoolBuilder,
+            @Value("${spring.task.execution.pool.max-size:10}") int maxThreads,
+            @Value("${spring.task.execution.pool.queue-capacity:100}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("cv-job-", maxThreads, queueCapacity);
+            executor.setTaskDecorator(SECURITY_CONTEXT_PROPAGATION);
+            return executor;
+        }
+        return threadPoolBuilder.taskDecorator(SECURITY_CONTEXT_PROPAGATION).build();
+    }
+
+    @Bean
+    public AsyncTaskExecutor mvcAsyncExecutor(
+            @Value("${cv.web.async.max-threads:16}") int maxThreads,
+            @Value("${cv.web.async.queue-capacity:200}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor("mvc-async-", maxThreads, queueCapacity);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor ollamaHttpExecutor(@Value("${ollama.http.io-threads:4}") int ioThreads) {
+        if (virtualThreads) {
+            // The HttpClient hands its own internal tasks to this executor, so it must never block or reject.
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ollama-http-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ioThreads);
+        executor.setMaxPoolSize(ioThreads);
+        executor.setThreadNamePrefix("ollama-http-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor pdfExtractionExecutor(
+            @Value("${pdf.extract.threads:4}") int threads,
+            @Value("${pdf.extract.queue-capacity:100}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            // Extraction is CPU-bound, so keep it to the same number of concurrent tasks as the pool.
+            return new BoundedVirtualThreadExecutor("pdf-extract-", threads, queueCapacity);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-extract-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Bean
+    public AsyncTaskExecutor cvBatchExecutor(
+            @Value("${cv.batch.threads:8}") int threads,
+            @Value("${cv.batch.queue-capacity:200}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("cv-batch-", threads, queueCapacity);
+            executor.setTaskDecorator(SECURITY_CONTEXT_PROPAGATION);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cv-batch-");
+        executor.setTaskDecorator(SECURITY_CONTEXT_PROPAGATION);
+        return executor;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.cv_rewriter.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+@Configuration
+public class OllamaHttpConfig {
+
+    @Bean
+    public HttpClient ollamaHttpClient(
+            @Qualifier("ollamaHttpExecutor") Executor ollamaHttpExecutor,
+            @Value("${ollama.http.connect-timeout:5s}") Duration connectTimeout
+    ) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(ollamaHttpExecutor)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.cv_rewriter.config;
+
+import com.example.cv_rewriter.service.RequestRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+// Runs ahead of CsrfFilter, whose parameter lookup is what makes the container parse a multipart upload,
+// so rejected uploads are never read past their headers.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final RequestMatcher FORM_SUBMISSION = new AntPathRequestMatcher("/process-cv", HttpMethod.POST.name());
+    private static final RequestMatcher BATCH_SUBMISSION = new AntPathRequestMatcher("/batch/**", HttpMethod.POST.name());
+    private static final RequestMatcher LIMITED_REQUESTS = new OrRequestMatcher(
+            FORM_SUBMISSION,
+            new AntPathRequestMatcher("/jobs", HttpMethod.POST.name()),
+            BATCH_SUBMISSION
+    );
+
+    private final RequestRateLimiter requestRateLimiter;
+    private final SessionFlashMapManager flashMapManager = new SessionFlashMapManager();
+
+    public RateLimitFilter(RequestRateLimiter requestRateLimiter) {
+        this.requestRateLimiter = requestRateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !LIMITED_REQUESTS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<Duration> retryAfter = requestRateLimiter.tryAcquire(
+                currentUser(), request.getRemoteAddr(), BATCH_SUBMISSION.matches(request));
+        if (retryAfter.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = RequestRateLimiter.retryAfterSeconds(retryAfter.get());
+        // Tell the container not to keep reading a large upload on this connection.
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+
+        if (FORM_SUBMISSION.matches(request)) {
+            // The dashboard form posts here directly; send the browser back with a message, as capacity errors do.
+            FlashMap flashMap = new FlashMap();
+            flashMap.put("error", "You have submitted a lot of CVs in a short time. Please try again in about "
+                    + retryAfterSeconds + " seconds.");
+            flashMap.setTargetRequestPath(request.getContextPath() + "/dashboard");
+            flashMapManager.saveOutputFlashMap(flashMap, request, response);
+            response.setStatus(HttpStatus.SEE_OTHER.value());
+            response.setHeader(HttpHeaders.LOCATION, request.getContextPath() + "/dashboard");
+            return;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many CV submissions. Please try again in about "
+                + retryAfterSeconds + " seconds.\"}");
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        Object email = authentication.getPrincipal() instanceof OAuth2User oauthUser
+                ? oauthUser.getAttribute("email")
+                : null;
+        return (email != null ? email.toString() : authentication.getName()).toLowerCase(Locale.ROOT);
+    }
+}
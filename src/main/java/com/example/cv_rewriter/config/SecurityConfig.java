@@ -1,21 +1,39 @@
 package com.example.cv_rewriter.config;
 
+import com.example.cv_rewriter.service.RequestRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig{
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            RequestRateLimiter requestRateLimiter,
+            @Value("${cv.metrics.prometheus.allowed-addresses:127.0.0.1/32,::1/128}") List<String> prometheusAddresses
+    ) throws Exception {
         http
+                // Not a bean, so the servlet container does not register it a second time outside the security chain.
+                .addFilterBefore(new RateLimitFilter(requestRateLimiter), CsrfFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/login", "/oauth2/**", "/css/**", "/js/**", "/images/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        // Scrapers cannot sign in, so the scrape endpoint is limited to known addresses instead.
+                        .requestMatchers("/actuator/prometheus").access(fromAddresses(prometheusAddresses))
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -36,4 +54,14 @@ public class SecurityConfig{
         return http.build();
     }
 
+    private static AuthorizationManager<RequestAuthorizationContext> fromAddresses(List<String> addresses) {
+        List<IpAddressMatcher> matchers = addresses.stream()
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.example.cv_rewriter.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor mvcAsyncExecutor;
+    private final Duration asyncRequestTimeout;
+
+    public WebMvcConfig(
+            @Qualifier("mvcAsyncExecutor") AsyncTaskExecutor mvcAsyncExecutor,
+            @Value("${cv.web.async.request-timeout:60s}") Duration asyncRequestTimeout
+    ) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+        this.asyncRequestTimeout = asyncRequestTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.cv_rewriter.controller;
 
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
 import com.example.cv_rewriter.model.CvProcessRequest;
+import com.example.cv_rewriter.model.FeedbackReport;
 import com.example.cv_rewriter.service.CvProcessRecordService;
 import com.example.cv_rewriter.service.FeedbackReportService;
 import com.example.cv_rewriter.service.OllamaService;
+import com.example.cv_rewriter.service.PipelineMetrics;
+import com.example.cv_rewriter.service.RenderedReportCache;
+import com.example.cv_rewriter.service.UploadStore;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -15,6 +22,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import retrofit2.HttpException;
 
@@ -24,22 +32,29 @@ import java.io.IOException;
 public class CVController {
     private static final Logger log = LoggerFactory.getLogger(CVController.class);
 
-    private static final String ORIGINAL_FILE_BYTES_ATTR = "originalCvBytes";
-    private static final String ORIGINAL_FILE_NAME_ATTR = "originalCvFilename";
-    private static final String ORIGINAL_FILE_CONTENT_TYPE_ATTR = "originalCvContentType";
+    private static final String ORIGINAL_FILE_HANDLE_ATTR = "originalCvHandle";
 
     private final OllamaService ollamaService;
     private final FeedbackReportService feedbackReportService;
     private final CvProcessRecordService cvProcessRecordService;
+    private final UploadStore uploadStore;
+    private final RenderedReportCache renderedReportCache;
+    private final PipelineMetrics pipelineMetrics;
 
     public CVController(
             OllamaService ollamaService,
             FeedbackReportService feedbackReportService,
-            CvProcessRecordService cvProcessRecordService
+            CvProcessRecordService cvProcessRecordService,
+            UploadStore uploadStore,
+            RenderedReportCache renderedReportCache,
+            PipelineMetrics pipelineMetrics
     ) {
         this.ollamaService = ollamaService;
         this.feedbackReportService = feedbackReportService;
         this.cvProcessRecordService = cvProcessRecordService;
+        this.uploadStore = uploadStore;
+        this.renderedReportCache = renderedReportCache;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     @PostMapping("/process-cv")
@@ -52,43 +67,57 @@ public class CVController {
         MultipartFile cvFile = cvProcessRequest.getCvFile();
 
         try {
-            String cvText = feedbackReportService.extractCvText(cvFile);
-            String feedbackReport = ollamaService.buildFeedbackReport(cvProcessRequest.getJobDescription(), cvText);
-            byte[] pdfBytes = feedbackReportService.renderFeedbackReportPdf(feedbackReport);
+            String cvText = pipelineMetrics.record(PipelineMetrics.EXTRACT,
+                    () -> feedbackReportService.extractCvText(cvFile));
+            FeedbackReport generated = pipelineMetrics.record(PipelineMetrics.GENERATE,
+                    () -> ollamaService.buildFeedbackReport(cvProcessRequest.getJobDescription(), cvText));
+            String feedbackReport = generated.text();
+            // Rendered to disk before anything is committed, so a render failure still falls back to the original file.
+            renderedReportCache.prepare(feedbackReport);
 
-            recordSuccessfulProcessing(user, cvProcessRequest, feedbackReport);
+            recordSuccessfulProcessing(user, cvProcessRequest, feedbackReport, generated.cacheKey());
 
             clearStoredOriginalFile(session);
 
+            StreamingResponseBody pdfBody = outputStream -> renderedReportCache.writeTo(feedbackReport, outputStream);
+
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=enhanced_cv.pdf")
                     .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfBytes);
+                    .body(pdfBody);
         } catch (Exception ex) {
             log.error("Failed to process CV with OpenAI. Returning original file instead.", ex);
-            byte[] originalFileBytes = getOriginalFileBytes(cvFile);
-
-            if (isQuotaError(ex) && originalFileBytes != null) {
-                storeOriginalFileInSession(session, cvFile, originalFileBytes);
-                redirectAttributes.addFlashAttribute("error", "We are currently out of quota. You can download your original CV or try again later.");
+            boolean originalFileAvailable = cvFile != null && !cvFile.isEmpty();
+
+            CapacityExceededException capacityException = findCause(ex, CapacityExceededException.class);
+            if ((capacityException != null || isQuotaError(ex)) && storeOriginalFile(session, cvFile)) {
+                pipelineMetrics.recordFallback(capacityException != null
+                        ? PipelineMetrics.Fallback.CAPACITY
+                        : PipelineMetrics.Fallback.QUOTA);
+                redirectAttributes.addFlashAttribute("error", capacityException != null
+                        ? "We are handling a lot of requests right now. You can download your original CV or try again in about "
+                                + capacityException.getRetryAfter().toSeconds() + " seconds."
+                        : "We are currently out of quota. You can download your original CV or try again later.");
                 redirectAttributes.addFlashAttribute("downloadAvailable", true);
                 return "redirect:/dashboard";
             }
 
-            if (originalFileBytes != null) {
+            if (originalFileAvailable) {
+                pipelineMetrics.recordFallback(PipelineMetrics.Fallback.ORIGINAL_FILE);
                 clearStoredOriginalFile(session);
-                return buildOriginalFileResponse(cvFile, originalFileBytes);
+                return buildOriginalFileResponse(cvFile);
             }
 
             throw ex;
         }
     }
 
-    private void recordSuccessfulProcessing(OAuth2User user, CvProcessRequest request, String feedbackReport) {
+    private void recordSuccessfulProcessing(OAuth2User user, CvProcessRequest request, String feedbackReport, String cacheKey) {
         try {
             String email = userAttribute(user, "email");
             String name = userAttribute(user, "name");
-            cvProcessRecordService.saveSuccessfulProcessing(email, name, request.getJobDescription(), feedbackReport);
+            pipelineMetrics.record(PipelineMetrics.PERSIST, () -> cvProcessRecordService.saveSuccessfulProcessing(
+                    email, name, request.getJobDescription(), feedbackReport, cacheKey));
         } catch (Exception exception) {
             log.warn("Failed to persist CV processing history", exception);
         }
@@ -103,43 +132,27 @@ public class CVController {
     }
 
     @GetMapping("/download-original")
-    public ResponseEntity<byte[]> downloadOriginalCv(HttpSession session) {
-        byte[] originalFileBytes = (byte[]) session.getAttribute(ORIGINAL_FILE_BYTES_ATTR);
-        if (originalFileBytes == null) {
+    public ResponseEntity<Resource> downloadOriginalCv(HttpSession session) {
+        UploadStore.StoredUpload upload = uploadStore.find((String) session.getAttribute(ORIGINAL_FILE_HANDLE_ATTR))
+                .orElse(null);
+        session.removeAttribute(ORIGINAL_FILE_HANDLE_ATTR);
+        if (upload == null) {
             return ResponseEntity.notFound().build();
         }
 
-        String filename = (String) session.getAttribute(ORIGINAL_FILE_NAME_ATTR);
-        String contentType = (String) session.getAttribute(ORIGINAL_FILE_CONTENT_TYPE_ATTR);
-        clearStoredOriginalFile(session);
-
-        return buildOriginalFileResponse(filename, contentType, originalFileBytes);
+        return buildOriginalFileResponse(upload.filename(), upload.contentType(), upload.size(),
+                new FileSystemResource(upload.path()));
     }
 
-    private byte[] getOriginalFileBytes(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            return null;
-        }
-
-        try {
-            return file.getBytes();
-        } catch (IOException ioException) {
-            log.error("Unable to read bytes from the original CV file.", ioException);
-            return null;
-        }
-    }
-
-    private ResponseEntity<byte[]> buildOriginalFileResponse(MultipartFile file, byte[] body) {
-        String filename = (file != null && file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank())
+    private ResponseEntity<Resource> buildOriginalFileResponse(MultipartFile file) {
+        String filename = (file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank())
                 ? file.getOriginalFilename()
                 : "original_cv.pdf";
 
-        String contentType = (file != null) ? file.getContentType() : null;
-
-        return buildOriginalFileResponse(filename, contentType, body);
+        return buildOriginalFileResponse(filename, file.getContentType(), file.getSize(), file.getResource());
     }
 
-    private ResponseEntity<byte[]> buildOriginalFileResponse(String filename, String contentType, byte[] body) {
+    private ResponseEntity<Resource> buildOriginalFileResponse(String filename, String contentType, long contentLength, Resource body) {
         String effectiveFilename = (filename != null && !filename.isBlank()) ? filename : "original_cv.pdf";
 
         MediaType mediaType = MediaType.APPLICATION_PDF;
@@ -158,19 +171,31 @@ public class CVController {
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
                 .contentType(mediaType)
+                .contentLength(contentLength)
                 .body(body);
     }
 
-    private void storeOriginalFileInSession(HttpSession session, MultipartFile file, byte[] originalFileBytes) {
-        session.setAttribute(ORIGINAL_FILE_BYTES_ATTR, originalFileBytes);
-        session.setAttribute(ORIGINAL_FILE_NAME_ATTR, file != null ? file.getOriginalFilename() : null);
-        session.setAttribute(ORIGINAL_FILE_CONTENT_TYPE_ATTR, file != null ? file.getContentType() : null);
+    private boolean storeOriginalFile(HttpSession session, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return false;
+        }
+
+        try {
+            clearStoredOriginalFile(session);
+            session.setAttribute(ORIGINAL_FILE_HANDLE_ATTR, uploadStore.store(file).handle());
+            return true;
+        } catch (IOException ioException) {
+            log.error("Unable to store the original CV file for later download.", ioException);
+            return false;
+        }
     }
 
     private void clearStoredOriginalFile(HttpSession session) {
-        session.removeAttribute(ORIGINAL_FILE_BYTES_ATTR);
-        session.removeAttribute(ORIGINAL_FILE_NAME_ATTR);
-        session.removeAttribute(ORIGINAL_FILE_CONTENT_TYPE_ATTR);
+        String handle = (String) session.getAttribute(ORIGINAL_FILE_HANDLE_ATTR);
+        if (handle != null) {
+            session.removeAttribute(ORIGINAL_FILE_HANDLE_ATTR);
+            uploadStore.remove(handle);
+        }
     }
 
     private boolean isQuotaError(Throwable throwable) {
@@ -188,6 +213,17 @@ public class CVController {
         return false;
     }
 
+    private <T extends Throwable> T findCause(Throwable throwable, Class<T> type) {
+        Throwable current = throwable;
+        while (current != null) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            current = current.getCause();
+        }
+        return null;
+    }
+
     private boolean messageIndicatesQuota(String message) {
         return message != null && message.toLowerCase().contains("quota");
     }
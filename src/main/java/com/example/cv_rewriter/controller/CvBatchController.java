@@ -0,0 +1,123 @@
+package com.example.cv_rewriter.controller;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import com.example.cv_rewriter.model.CvBatchRequest;
+import com.example.cv_rewriter.service.CvBatchService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/batch")
+public class CvBatchController {
+
+    private final CvBatchService cvBatchService;
+    private final Duration requestTimeout;
+
+    public CvBatchController(
+            CvBatchService cvBatchService,
+            @Value("${cv.batch.request-timeout:10m}") Duration requestTimeout
+    ) {
+        this.cvBatchService = cvBatchService;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @PostMapping("/job-descriptions")
+    public WebAsyncTask<Void> processAgainstJobDescriptions(
+            @ModelAttribute CvBatchRequest batchRequest,
+            Authentication authentication,
+            HttpServletResponse response
+    ) {
+        OAuth2User oauthUser = oauthUser(authentication);
+        CvBatchService.PendingBatch batch = cvBatchService.prepareAgainstJobDescriptions(
+                batchRequest.getCvFile(),
+                batchRequest.getJobDescriptions(),
+                userAttribute(oauthUser, "email"),
+                userAttribute(oauthUser, "name")
+        );
+        return batchResponse(batch, batchRequest.getFormat(), response);
+    }
+
+    @PostMapping("/cvs")
+    public WebAsyncTask<Void> processAgainstCvs(
+            @ModelAttribute CvBatchRequest batchRequest,
+            Authentication authentication,
+            HttpServletResponse response
+    ) {
+        OAuth2User oauthUser = oauthUser(authentication);
+        CvBatchService.PendingBatch batch = cvBatchService.prepareAgainstCvs(
+                batchRequest.getCvFiles(),
+                batchRequest.getJobDescription(),
+                userAttribute(oauthUser, "email"),
+                userAttribute(oauthUser, "name")
+        );
+        return batchResponse(batch, batchRequest.getFormat(), response);
+    }
+
+    @ExceptionHandler(PdfProcessingException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidUpload(PdfProcessingException exception) {
+        return ResponseEntity.badRequest().body(Map.of("error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> handleCapacityExceeded(CapacityExceededException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(Map.of("error", exception.getMessage()));
+    }
+
+    // Validation and upload errors are reported before this point; the items themselves are generated on the
+    // MVC async executor while the response is being written, not on the request thread.
+    private WebAsyncTask<Void> batchResponse(CvBatchService.PendingBatch batch, String format, HttpServletResponse response) {
+        boolean combinedPdf = "pdf".equalsIgnoreCase(format);
+
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(combinedPdf ? "feedback_reports.pdf" : "feedback_reports.zip")
+                .build();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString());
+        response.setContentType(combinedPdf ? MediaType.APPLICATION_PDF_VALUE : "application/zip");
+
+        return new WebAsyncTask<>(requestTimeout.toMillis(), () -> {
+            OutputStream outputStream = response.getOutputStream();
+            if (combinedPdf) {
+                cvBatchService.writeCombinedPdf(batch, outputStream);
+            } else {
+                cvBatchService.writeZip(batch, outputStream);
+            }
+            outputStream.flush();
+            return null;
+        });
+    }
+
+    private OAuth2User oauthUser(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof OAuth2User oauthUser) {
+            return oauthUser;
+        }
+        return null;
+    }
+
+    private String userAttribute(OAuth2User user, String attributeName) {
+        if (user == null || attributeName == null) {
+            return null;
+        }
+        Object attributeValue = user.getAttribute(attributeName);
+        return attributeValue != null ? attributeValue.toString() : null;
+    }
+}
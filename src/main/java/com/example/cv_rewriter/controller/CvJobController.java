@@ -0,0 +1,143 @@
+package com.example.cv_rewriter.controller;
+
+import com.example.cv_rewriter.entity.CvProcessJob;
+import com.example.cv_rewriter.entity.CvProcessJobStatus;
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import com.example.cv_rewriter.model.CvJobStatusResponse;
+import com.example.cv_rewriter.model.CvProcessRequest;
+import com.example.cv_rewriter.service.CvJobEventBroadcaster;
+import com.example.cv_rewriter.service.CvProcessJobService;
+import com.example.cv_rewriter.service.RenderedReportCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/jobs")
+public class CvJobController {
+
+    private final CvProcessJobService cvProcessJobService;
+    private final CvJobEventBroadcaster cvJobEventBroadcaster;
+    private final RenderedReportCache renderedReportCache;
+
+    public CvJobController(
+            CvProcessJobService cvProcessJobService,
+            CvJobEventBroadcaster cvJobEventBroadcaster,
+            RenderedReportCache renderedReportCache
+    ) {
+        this.cvProcessJobService = cvProcessJobService;
+        this.cvJobEventBroadcaster = cvJobEventBroadcaster;
+        this.renderedReportCache = renderedReportCache;
+    }
+
+    @PostMapping
+    public ResponseEntity<CvJobStatusResponse> submitJob(
+            @ModelAttribute CvProcessRequest cvProcessRequest,
+            Authentication authentication
+    ) {
+        OAuth2User oauthUser = oauthUser(authentication);
+        CvProcessJob job = cvProcessJobService.submit(
+                cvProcessRequest.getCvFile(),
+                cvProcessRequest.getJobDescription(),
+                owner(authentication),
+                userAttribute(oauthUser, "email"),
+                userAttribute(oauthUser, "name")
+        );
+
+        CvJobStatusResponse response = CvJobStatusResponse.from(job);
+        return ResponseEntity.accepted()
+                .location(URI.create(response.statusUrl()))
+                .body(response);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<CvJobStatusResponse> jobStatus(@PathVariable String jobId, Authentication authentication) {
+        return cvProcessJobService.findJob(jobId, owner(authentication))
+                .map(job -> ResponseEntity.ok(CvJobStatusResponse.from(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(path = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> jobEvents(@PathVariable String jobId, Authentication authentication) {
+        String owner = owner(authentication);
+        if (cvProcessJobService.findJob(jobId, owner).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = cvJobEventBroadcaster.subscribe(jobId)
+                .orElseGet(() -> cvJobEventBroadcaster.completedEmitter(
+                        cvProcessJobService.findJob(jobId, owner).map(CvJobStatusResponse::from).orElseThrow()));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(emitter);
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadJobResult(@PathVariable String jobId, Authentication authentication) {
+        CvProcessJob job = cvProcessJobService.findJob(jobId, owner(authentication)).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String report = job.getFeedbackReport();
+        if (job.getStatus() != CvProcessJobStatus.COMPLETED || report == null || report.isBlank()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        StreamingResponseBody body = outputStream -> renderedReportCache.writeTo(report, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=enhanced_cv.pdf")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+
+    @ExceptionHandler(PdfProcessingException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidUpload(PdfProcessingException exception) {
+        return ResponseEntity.badRequest().body(Map.of("error", exception.getMessage()));
+    }
+
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> handleCapacityExceeded(CapacityExceededException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(Map.of("error", exception.getMessage()));
+    }
+
+    private String owner(Authentication authentication) {
+        if (authentication == null) {
+            return null;
+        }
+        String email = userAttribute(oauthUser(authentication), "email");
+        return email != null ? email : authentication.getName();
+    }
+
+    private OAuth2User oauthUser(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof OAuth2User oauthUser) {
+            return oauthUser;
+        }
+        return null;
+    }
+
+    private String userAttribute(OAuth2User user, String attributeName) {
+        if (user == null || attributeName == null) {
+            return null;
+        }
+        Object attributeValue = user.getAttribute(attributeName);
+        return attributeValue != null ? attributeValue.toString() : null;
+    }
+}
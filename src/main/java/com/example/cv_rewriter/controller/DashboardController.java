@@ -1,5 +1,6 @@
 package com.example.cv_rewriter.controller;
 
+import com.example.cv_rewriter.model.CvHistoryPage;
 import com.example.cv_rewriter.service.CvProcessRecordService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -28,7 +29,9 @@ public class DashboardController {
                 String email = attributeAsString(oauthUser, "email");
                 model.addAttribute("name", attributeAsString(oauthUser, "name"));
                 model.addAttribute("email", email);
-                model.addAttribute("history", cvProcessRecordService.fetchRecentHistory(email));
+                CvHistoryPage history = cvProcessRecordService.fetchRecentHistory(email);
+                model.addAttribute("history", history.items());
+                model.addAttribute("historyNextCursor", history.nextCursor());
             } else {
                 String username = authentication.getName();
                 model.addAttribute("name", username);
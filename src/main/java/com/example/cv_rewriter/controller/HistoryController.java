@@ -0,0 +1,71 @@
+package com.example.cv_rewriter.controller;
+
+import com.example.cv_rewriter.model.CvHistoryPage;
+import com.example.cv_rewriter.service.CvProcessRecordService;
+import com.example.cv_rewriter.service.RenderedReportCache;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/history")
+public class HistoryController {
+
+    private final CvProcessRecordService cvProcessRecordService;
+    private final RenderedReportCache renderedReportCache;
+
+    public HistoryController(CvProcessRecordService cvProcessRecordService, RenderedReportCache renderedReportCache) {
+        this.cvProcessRecordService = cvProcessRecordService;
+        this.renderedReportCache = renderedReportCache;
+    }
+
+    @GetMapping
+    public CvHistoryPage history(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication
+    ) {
+        return cvProcessRecordService.fetchHistoryPage(userEmail(authentication), cursor, size);
+    }
+
+    @GetMapping(path = "/{recordId}/report", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> report(@PathVariable Long recordId, Authentication authentication) {
+        return cvProcessRecordService.findFeedbackReport(recordId, userEmail(authentication))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{recordId}/pdf")
+    public ResponseEntity<StreamingResponseBody> reportPdf(@PathVariable Long recordId, Authentication authentication) {
+        return cvProcessRecordService.findFeedbackReport(recordId, userEmail(authentication))
+                .filter(report -> !report.isBlank())
+                .map(report -> {
+                    ContentDisposition contentDisposition = ContentDisposition.attachment()
+                            .filename("feedback_report_" + recordId + ".pdf")
+                            .build();
+                    StreamingResponseBody body = outputStream -> renderedReportCache.writeTo(report, outputStream);
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                            .contentType(MediaType.APPLICATION_PDF)
+                            .body(body);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private String userEmail(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof OAuth2User oauthUser) {
+            Object email = oauthUser.getAttribute("email");
+            return email != null ? email.toString() : null;
+        }
+        return null;
+    }
+}
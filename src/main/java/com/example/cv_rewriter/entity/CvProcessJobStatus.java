@@ -0,0 +1,12 @@
+package com.example.cv_rewriter.entity;
+
+public enum CvProcessJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -1,23 +1,33 @@
 package com.example.cv_rewriter.entity;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
 @Entity
-@Table(name = "cv_process_records")
+@Table(name = "cv_process_records", indexes = {
+        @Index(name = "idx_cv_process_records_cache_key", columnList = "cache_key"),
+        @Index(name = "idx_cv_process_records_user_created", columnList = "user_email, created_at, id")
+})
 public class CvProcessRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cv_process_records_seq")
+    @SequenceGenerator(name = "cv_process_records_seq", sequenceName = "cv_process_records_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_email", length = 320)
@@ -26,14 +36,24 @@ public class CvProcessRecord {
     @Column(name = "user_name", length = 255)
     private String userName;
 
-    @Lob
-    @Column(name = "job_description", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_description_id")
+    private JobDescription storedJobDescription;
+
+    // Set on new records and resolved to storedJobDescription by the history writer.
+    @Transient
     private String jobDescription;
 
-    @Lob
-    @Column(name = "feedback_report", nullable = false)
+    @Column(name = "job_preview", length = 160)
+    private String jobPreview;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "feedback_report_deflated")
     private String feedbackReport;
 
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
@@ -69,6 +89,9 @@ public class CvProcessRecord {
     }
 
     public String getJobDescription() {
+        if (storedJobDescription != null) {
+            return storedJobDescription.getContent();
+        }
         return jobDescription;
     }
 
@@ -76,6 +99,22 @@ public class CvProcessRecord {
         this.jobDescription = jobDescription;
     }
 
+    public JobDescription getStoredJobDescription() {
+        return storedJobDescription;
+    }
+
+    public void setStoredJobDescription(JobDescription storedJobDescription) {
+        this.storedJobDescription = storedJobDescription;
+    }
+
+    public String getJobPreview() {
+        return jobPreview;
+    }
+
+    public void setJobPreview(String jobPreview) {
+        this.jobPreview = jobPreview;
+    }
+
     public String getFeedbackReport() {
         return feedbackReport;
     }
@@ -84,6 +123,14 @@ public class CvProcessRecord {
         this.feedbackReport = feedbackReport;
     }
 
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     public OffsetDateTime getCreatedAt() {
         return createdAt;
     }
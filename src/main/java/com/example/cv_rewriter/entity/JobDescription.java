@@ -0,0 +1,65 @@
+package com.example.cv_rewriter.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+@Entity
+@Table(name = "job_descriptions")
+public class JobDescription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_descriptions_seq")
+    @SequenceGenerator(name = "job_descriptions_seq", sequenceName = "job_descriptions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "content_hash", length = 64, nullable = false, unique = true)
+    private String contentHash;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_deflated", nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    protected JobDescription() {
+    }
+
+    public JobDescription(String contentHash, String content) {
+        this.contentHash = contentHash;
+        this.content = content;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = OffsetDateTime.now(ZoneOffset.UTC);
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.cv_rewriter.exceptions;
+
+import java.time.Duration;
+
+public class CapacityExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public CapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.cv_rewriter.exceptions;
+
+public class OllamaRequestException extends IllegalStateException {
+    private final int statusCode;
+
+    public OllamaRequestException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public OllamaRequestException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isRetriable() {
+        return statusCode == 0 || statusCode >= 500;
+    }
+}
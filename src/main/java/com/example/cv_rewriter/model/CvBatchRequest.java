@@ -0,0 +1,23 @@
+package com.example.cv_rewriter.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class CvBatchRequest {
+
+    private MultipartFile cvFile;
+
+    private List<MultipartFile> cvFiles = new ArrayList<>();
+
+    private String jobDescription;
+
+    private List<String> jobDescriptions = new ArrayList<>();
+
+    private String format = "zip";
+}
@@ -0,0 +1,13 @@
+package com.example.cv_rewriter.model;
+
+import java.util.List;
+
+public record CvBatchResult(List<Item> items) {
+
+    public record Item(String label, String feedbackReport, String error) {
+
+        public boolean succeeded() {
+            return feedbackReport != null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.cv_rewriter.model;
+
+import java.util.List;
+
+public record CvHistoryPage(List<CvProcessRecordSummary> items, String nextCursor) {
+
+    public static CvHistoryPage empty() {
+        return new CvHistoryPage(List.of(), null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.cv_rewriter.model;
+
+import com.example.cv_rewriter.entity.CvProcessJob;
+import com.example.cv_rewriter.entity.CvProcessJobStatus;
+
+import java.time.OffsetDateTime;
+
+public record CvJobStatusResponse(
+        String jobId,
+        CvProcessJobStatus status,
+        String error,
+        String statusUrl,
+        String downloadUrl,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt
+) {
+
+    public static CvJobStatusResponse from(CvProcessJob job) {
+        String statusUrl = "/jobs/" + job.getId();
+        String downloadUrl = job.getStatus() == CvProcessJobStatus.COMPLETED ? statusUrl + "/download" : null;
+        return new CvJobStatusResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getErrorMessage(),
+                statusUrl,
+                downloadUrl,
+                job.getCreatedAt(),
+                job.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.cv_rewriter.model;
+
+import java.time.OffsetDateTime;
+
+public record CvProcessRecordSummary(Long id, OffsetDateTime createdAt, String jobPreview) {
+
+    public CvProcessRecordSummary {
+        jobPreview = jobPreview != null ? jobPreview : "";
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.cv_rewriter.model;
+
+// A generated report and the cache key it can be reused under. The key is null when some sections could not be
+// generated: such a report is only for the caller that asked for it and must not be cached or reused.
+public record FeedbackReport(String text, String cacheKey) {
+
+    public boolean partial() {
+        return cacheKey == null;
+    }
+}
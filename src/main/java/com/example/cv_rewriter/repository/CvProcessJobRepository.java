@@ -0,0 +1,35 @@
+package com.example.cv_rewriter.repository;
+
+import com.example.cv_rewriter.entity.CvProcessJob;
+import com.example.cv_rewriter.entity.CvProcessJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface CvProcessJobRepository extends JpaRepository<CvProcessJob, String> {
+
+    Optional<CvProcessJob> findByIdAndOwner(String id, String owner);
+
+    @Modifying
+    @Query("update CvProcessJob j set j.status = :status, j.errorMessage = :errorMessage, j.updatedAt = :now "
+            + "where j.status in :fromStatuses and j.updatedAt < :cutoff")
+    int failJobsNotUpdatedSince(
+            @Param("fromStatuses") Collection<CvProcessJobStatus> fromStatuses,
+            @Param("cutoff") OffsetDateTime cutoff,
+            @Param("status") CvProcessJobStatus status,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") OffsetDateTime now
+    );
+
+    @Modifying
+    @Query("delete from CvProcessJob j where j.status in :statuses and j.updatedAt < :cutoff")
+    int deleteJobsNotUpdatedSince(
+            @Param("statuses") Collection<CvProcessJobStatus> statuses,
+            @Param("cutoff") OffsetDateTime cutoff
+    );
+}
@@ -1,13 +1,41 @@
 package com.example.cv_rewriter.repository;
 
 import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.model.CvProcessRecordSummary;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface CvProcessRecordRepository extends JpaRepository<CvProcessRecord, Long> {
 
-    List<CvProcessRecord> findAllByUserEmailOrderByCreatedAtDesc(String userEmail, Pageable pageable);
-}
+    @Query("""
+            select new com.example.cv_rewriter.model.CvProcessRecordSummary(r.id, r.createdAt, r.jobPreview)
+            from CvProcessRecord r
+            where r.userEmail = :userEmail
+            order by r.createdAt desc, r.id desc
+            """)
+    List<CvProcessRecordSummary> findSummaries(@Param("userEmail") String userEmail, Pageable pageable);
+
+    @Query("""
+            select new com.example.cv_rewriter.model.CvProcessRecordSummary(r.id, r.createdAt, r.jobPreview)
+            from CvProcessRecord r
+            where r.userEmail = :userEmail
+              and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id))
+            order by r.createdAt desc, r.id desc
+            """)
+    List<CvProcessRecordSummary> findSummariesBefore(
+            @Param("userEmail") String userEmail,
+            @Param("createdAt") OffsetDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
 
+    Optional<CvProcessRecord> findByIdAndUserEmail(Long id, String userEmail);
+
+    Optional<CvProcessRecord> findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(String cacheKey, OffsetDateTime createdAfter);
+}
@@ -0,0 +1,11 @@
+package com.example.cv_rewriter.repository;
+
+import com.example.cv_rewriter.entity.JobDescription;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface JobDescriptionRepository extends JpaRepository<JobDescription, Long> {
+
+    Optional<JobDescription> findByContentHash(String contentHash);
+}
@@ -0,0 +1,284 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import com.example.cv_rewriter.model.CvBatchResult;
+import com.example.cv_rewriter.model.FeedbackReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class CvBatchService {
+    private static final Logger log = LoggerFactory.getLogger(CvBatchService.class);
+
+    private static final String GENERIC_FAILURE_MESSAGE = "We could not generate this feedback report.";
+    private static final int MAX_LABEL_LENGTH = 40;
+
+    private final FeedbackReportService feedbackReportService;
+    private final OllamaService ollamaService;
+    private final CvProcessRecordService cvProcessRecordService;
+    private final UploadStore uploadStore;
+    private final PipelineMetrics pipelineMetrics;
+    private final TaskExecutor cvBatchExecutor;
+    private final int maxItems;
+    private final int parallelism;
+
+    public CvBatchService(
+            FeedbackReportService feedbackReportService,
+            OllamaService ollamaService,
+            CvProcessRecordService cvProcessRecordService,
+            UploadStore uploadStore,
+            PipelineMetrics pipelineMetrics,
+            @Qualifier("cvBatchExecutor") TaskExecutor cvBatchExecutor,
+            @Value("${cv.batch.max-items:20}") int maxItems,
+            @Value("${cv.batch.parallelism:4}") int parallelism
+    ) {
+        this.feedbackReportService = feedbackReportService;
+        this.ollamaService = ollamaService;
+        this.cvProcessRecordService = cvProcessRecordService;
+        this.uploadStore = uploadStore;
+        this.pipelineMetrics = pipelineMetrics;
+        this.cvBatchExecutor = cvBatchExecutor;
+        this.maxItems = Math.max(1, maxItems);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // A validated batch whose items have not started yet; they run when it is written out.
+    public record PendingBatch(List<String> labels, IntFunction<CvBatchResult.Item> task) {
+    }
+
+    public PendingBatch prepareAgainstJobDescriptions(
+            MultipartFile cvFile,
+            List<String> jobDescriptions,
+            String userEmail,
+            String userName
+    ) {
+        List<String> descriptions = jobDescriptions == null ? List.of() : jobDescriptions.stream()
+                .filter(description -> description != null && !description.isBlank())
+                .toList();
+        requireBatchSize(descriptions.size(), "Add at least one job description.");
+
+        String cvText = pipelineMetrics.record(PipelineMetrics.EXTRACT, () -> feedbackReportService.extractCvText(cvFile));
+
+        List<String> labels = labels(descriptions.stream().map(description -> slug(firstLine(description), "job")).toList());
+        return new PendingBatch(labels,
+                index -> generate(labels.get(index), descriptions.get(index), cvText, userEmail, userName));
+    }
+
+    public PendingBatch prepareAgainstCvs(
+            List<MultipartFile> cvFiles,
+            String jobDescription,
+            String userEmail,
+            String userName
+    ) {
+        if (jobDescription == null || jobDescription.isBlank()) {
+            throw new PdfProcessingException("Job description cannot be empty.");
+        }
+        List<MultipartFile> files = cvFiles == null ? List.of() : cvFiles.stream()
+                .filter(file -> file != null && !file.isEmpty())
+                .toList();
+        requireBatchSize(files.size(), "Upload at least one CV.");
+
+        List<String> labels = labels(files.stream().map(file -> slug(baseName(file.getOriginalFilename()), "cv")).toList());
+        List<UploadStore.StoredUpload> uploads = spool(files);
+        return new PendingBatch(labels, index -> {
+            UploadStore.StoredUpload upload = uploads.get(index);
+            try {
+                String cvText = pipelineMetrics.record(PipelineMetrics.EXTRACT,
+                        () -> feedbackReportService.extractCvText(upload.path()));
+                return generate(labels.get(index), jobDescription, cvText, userEmail, userName);
+            } catch (RuntimeException exception) {
+                log.warn("Batch item {} failed", labels.get(index), exception);
+                return new CvBatchResult.Item(labels.get(index), null, failureMessage(exception));
+            } finally {
+                uploadStore.remove(upload.handle());
+            }
+        });
+    }
+
+    // The items run on another thread after the request has been handed off, so the uploads are copied out of
+    // the multipart request first; any an unfinished batch leaves behind expire with the upload store's TTL.
+    private List<UploadStore.StoredUpload> spool(List<MultipartFile> files) {
+        List<UploadStore.StoredUpload> uploads = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                uploads.add(uploadStore.store(file));
+            }
+            return uploads;
+        } catch (IOException ioException) {
+            uploads.forEach(upload -> uploadStore.remove(upload.handle()));
+            throw new PdfProcessingException("Failed to read the uploaded CV.");
+        }
+    }
+
+    // Entries are written in batch order as soon as each item finishes, so the client starts receiving the
+    // archive while later items are still being generated.
+    public void writeZip(PendingBatch batch, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        OutputStream entryStream = StreamUtils.nonClosing(zip);
+
+        StringBuilder errors = new StringBuilder();
+        for (CompletableFuture<CvBatchResult.Item> pending : fanOut(batch)) {
+            CvBatchResult.Item item = pending.join();
+            if (item.succeeded()) {
+                zip.putNextEntry(new ZipEntry(item.label() + ".pdf"));
+                pipelineMetrics.record(PipelineMetrics.RENDER,
+                        () -> feedbackReportService.renderFeedbackReportPdf(item.feedbackReport(), entryStream));
+                zip.closeEntry();
+                zip.flush();
+            } else {
+                errors.append(item.label()).append(": ").append(item.error()).append('\n');
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("errors.txt"));
+            zip.write(errors.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    public void writeCombinedPdf(PendingBatch batch, OutputStream out) {
+        CvBatchResult result = new CvBatchResult(fanOut(batch).stream().map(CompletableFuture::join).toList());
+        StringBuilder combined = new StringBuilder();
+        for (CvBatchResult.Item item : result.items()) {
+            combined.append("==== ").append(item.label()).append(" ====\n");
+            combined.append(item.succeeded() ? item.feedbackReport() : "Not available: " + item.error()).append("\n\n");
+        }
+        pipelineMetrics.record(PipelineMetrics.RENDER,
+                () -> feedbackReportService.renderFeedbackReportPdf(combined.toString(), out));
+    }
+
+    private CvBatchResult.Item generate(String label, String jobDescription, String cvText, String userEmail, String userName) {
+        try {
+            FeedbackReport generated = pipelineMetrics.record(PipelineMetrics.GENERATE,
+                    () -> ollamaService.buildFeedbackReport(jobDescription, cvText));
+            String feedbackReport = generated.text();
+            feedbackReportService.validateReport(feedbackReport);
+            recordSuccessfulProcessing(userEmail, userName, jobDescription, feedbackReport, generated.cacheKey());
+            return new CvBatchResult.Item(label, feedbackReport, null);
+        } catch (RuntimeException exception) {
+            log.warn("Batch item {} failed", label, exception);
+            return new CvBatchResult.Item(label, null, failureMessage(exception));
+        }
+    }
+
+    private List<CompletableFuture<CvBatchResult.Item>> fanOut(PendingBatch batch) {
+        List<CompletableFuture<CvBatchResult.Item>> items = new ArrayList<>(batch.labels().size());
+        for (int i = 0; i < batch.labels().size(); i++) {
+            items.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < Math.min(parallelism, items.size()); i++) {
+            startNext(batch, items, next);
+        }
+        return items;
+    }
+
+    // Each finished item starts the next one, so at most parallelism items of a batch run at once without the
+    // caller having to wait for a slot.
+    private void startNext(PendingBatch batch, List<CompletableFuture<CvBatchResult.Item>> items, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= items.size()) {
+            return;
+        }
+        CompletableFuture<CvBatchResult.Item> item = items.get(index);
+        String label = batch.labels().get(index);
+
+        try {
+            cvBatchExecutor.execute(() -> {
+                try {
+                    item.complete(batch.task().apply(index));
+                } catch (RuntimeException exception) {
+                    log.warn("Batch item {} failed", label, exception);
+                    item.complete(new CvBatchResult.Item(label, null, GENERIC_FAILURE_MESSAGE));
+                } catch (Error error) {
+                    item.completeExceptionally(error);
+                    throw error;
+                } finally {
+                    startNext(batch, items, next);
+                }
+            });
+        } catch (TaskRejectedException rejectedException) {
+            item.complete(new CvBatchResult.Item(label, null,
+                    "Too many CVs are being processed right now. Please try again later."));
+            startNext(batch, items, next);
+        }
+    }
+
+    private void recordSuccessfulProcessing(String userEmail, String userName, String jobDescription,
+                                            String feedbackReport, String cacheKey) {
+        try {
+            pipelineMetrics.record(PipelineMetrics.PERSIST, () -> cvProcessRecordService.saveSuccessfulProcessing(
+                    userEmail, userName, jobDescription, feedbackReport, cacheKey));
+        } catch (Exception exception) {
+            log.warn("Failed to persist CV processing history for a batch item", exception);
+        }
+    }
+
+    private List<String> labels(List<String> names) {
+        List<String> labels = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            labels.add(String.format(Locale.ROOT, "%02d-%s", i + 1, names.get(i)));
+        }
+        return labels;
+    }
+
+    private void requireBatchSize(int size, String emptyMessage) {
+        if (size == 0) {
+            throw new PdfProcessingException(emptyMessage);
+        }
+        if (size > maxItems) {
+            throw new PdfProcessingException("A batch can contain at most " + maxItems + " items.");
+        }
+    }
+
+    private String failureMessage(Exception exception) {
+        if (exception instanceof PdfProcessingException || exception instanceof CapacityExceededException) {
+            return exception.getMessage();
+        }
+        return GENERIC_FAILURE_MESSAGE;
+    }
+
+    private String firstLine(String text) {
+        String stripped = text.strip();
+        int newline = stripped.indexOf('\n');
+        return newline >= 0 ? stripped.substring(0, newline) : stripped;
+    }
+
+    private String baseName(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private String slug(String text, String fallback) {
+        String slug = text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-+|-+$)", "");
+        if (slug.length() > MAX_LABEL_LENGTH) {
+            slug = slug.substring(0, MAX_LABEL_LENGTH).replaceAll("-+$", "");
+        }
+        return slug.isEmpty() ? fallback : slug;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.model.CvJobStatusResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tokens are published from the thread reading the Ollama stream, so nothing here may block on a client: each
+// subscriber gets a bounded queue drained on the async executor, and one that falls behind is disconnected.
+@Service
+public class CvJobEventBroadcaster {
+    private static final Logger log = LoggerFactory.getLogger(CvJobEventBroadcaster.class);
+
+    static final String TOKEN_EVENT = "token";
+    static final String STATUS_EVENT = "status";
+
+    private static final Event COMPLETE = new Event(null, null, null);
+
+    private final Map<String, JobStream> streams = new ConcurrentHashMap<>();
+    private final TaskExecutor senderExecutor;
+    private final Duration emitterTimeout;
+    private final int subscriberBuffer;
+    private final int maxReplayCharacters;
+
+    public CvJobEventBroadcaster(
+            @Qualifier("mvcAsyncExecutor") TaskExecutor senderExecutor,
+            @Value("${cv.jobs.events-timeout:10m}") Duration emitterTimeout,
+            @Value("${cv.jobs.events-buffer:256}") int subscriberBuffer,
+            @Value("${cv.jobs.events-replay-max-characters:32768}") int maxReplayCharacters
+    ) {
+        this.senderExecutor = senderExecutor;
+        this.emitterTimeout = emitterTimeout;
+        this.subscriberBuffer = Math.max(2, subscriberBuffer);
+        this.maxReplayCharacters = Math.max(0, maxReplayCharacters);
+    }
+
+    public void open(String jobId) {
+        streams.putIfAbsent(jobId, new JobStream());
+    }
+
+    public Optional<SseEmitter> subscribe(String jobId) {
+        JobStream stream = streams.get(jobId);
+        if (stream == null) {
+            return Optional.empty();
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(emitterTimeout.toMillis()), subscriberBuffer);
+        stream.lock.lock();
+        try {
+            if (stream.closed) {
+                return Optional.empty();
+            }
+            if (stream.replay != null && !stream.replay.isEmpty()) {
+                subscriber.pending.add(new Event(TOKEN_EVENT, stream.replay.toString(), null));
+            }
+            stream.subscribers.add(subscriber);
+        } finally {
+            stream.lock.unlock();
+        }
+        schedule(stream, subscriber);
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> removeSubscriber(stream, subscriber));
+        emitter.onTimeout(() -> removeSubscriber(stream, subscriber));
+        emitter.onError(error -> removeSubscriber(stream, subscriber));
+        return Optional.of(emitter);
+    }
+
+    public void publishToken(String jobId, String token) {
+        JobStream stream = streams.get(jobId);
+        if (stream == null || token == null || token.isEmpty()) {
+            return;
+        }
+
+        Event event = new Event(TOKEN_EVENT, token, null);
+        stream.lock.lock();
+        try {
+            appendReplay(stream, token);
+            for (Subscriber subscriber : stream.subscribers) {
+                if (!subscriber.pending.offer(event)) {
+                    log.debug("Disconnecting job event subscriber that fell {} events behind", subscriberBuffer);
+                    drop(stream, subscriber);
+                }
+            }
+        } finally {
+            stream.lock.unlock();
+        }
+        stream.subscribers.forEach(subscriber -> schedule(stream, subscriber));
+    }
+
+    public void complete(String jobId, CvJobStatusResponse status) {
+        JobStream stream = streams.remove(jobId);
+        if (stream == null) {
+            return;
+        }
+
+        Event event = new Event(STATUS_EVENT, status, MediaType.APPLICATION_JSON);
+        List<Subscriber> subscribers;
+        stream.lock.lock();
+        try {
+            stream.closed = true;
+            stream.replay = null;
+            subscribers = List.copyOf(stream.subscribers);
+            for (Subscriber subscriber : subscribers) {
+                // The final status matters more than any tokens still waiting to go out.
+                if (subscriber.pending.remainingCapacity() < 2) {
+                    subscriber.pending.clear();
+                }
+                subscriber.pending.add(event);
+                subscriber.pending.add(COMPLETE);
+            }
+            stream.subscribers.clear();
+        } finally {
+            stream.lock.unlock();
+        }
+        subscribers.forEach(subscriber -> schedule(stream, subscriber));
+    }
+
+    public SseEmitter completedEmitter(CvJobStatusResponse status) {
+        // Not yet handed to the response, so these sends are buffered rather than written.
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        if (send(emitter, new Event(STATUS_EVENT, status, MediaType.APPLICATION_JSON))) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    // Late subscribers are sent the text so far; past the limit there is nothing to replay and they only see new tokens.
+    private void appendReplay(JobStream stream, String token) {
+        if (stream.replay == null) {
+            return;
+        }
+        if (stream.replay.length() + token.length() > maxReplayCharacters) {
+            stream.replay = null;
+            return;
+        }
+        stream.replay.append(token);
+    }
+
+    private void schedule(JobStream stream, Subscriber subscriber) {
+        if (subscriber.pending.isEmpty() && !subscriber.dropped) {
+            return;
+        }
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senderExecutor.execute(() -> drain(stream, subscriber));
+        } catch (TaskRejectedException rejectedException) {
+            log.debug("No thread available to send job events; disconnecting subscriber", rejectedException);
+            removeSubscriber(stream, subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void drain(JobStream stream, Subscriber subscriber) {
+        while (true) {
+            if (subscriber.dropped) {
+                subscriber.emitter.complete();
+                return;
+            }
+
+            Event event = subscriber.pending.poll();
+            if (event == null) {
+                subscriber.draining.set(false);
+                // Re-check after releasing the flag, or an event offered in between would sit unsent.
+                if ((subscriber.pending.isEmpty() && !subscriber.dropped)
+                        || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            if (event == COMPLETE) {
+                subscriber.emitter.complete();
+                return;
+            }
+            if (!send(subscriber.emitter, event)) {
+                removeSubscriber(stream, subscriber);
+                return;
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, Event event) {
+        try {
+            emitter.send(SseEmitter.event().name(event.name()).data(event.data(), event.mediaType()));
+            return true;
+        } catch (IOException | IllegalStateException exception) {
+            log.debug("Dropping job event subscriber", exception);
+            emitter.completeWithError(exception);
+            return false;
+        }
+    }
+
+    // Called with the stream lock held; the sender completes the emitter once its current send returns.
+    private void drop(JobStream stream, Subscriber subscriber) {
+        subscriber.dropped = true;
+        subscriber.pending.clear();
+        stream.subscribers.remove(subscriber);
+    }
+
+    private void removeSubscriber(JobStream stream, Subscriber subscriber) {
+        stream.lock.lock();
+        try {
+            stream.subscribers.remove(subscriber);
+        } finally {
+            stream.lock.unlock();
+        }
+    }
+
+    // Only in-memory bookkeeping happens under the lock; sends to clients never do.
+    private static final class JobStream {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private StringBuilder replay = new StringBuilder();
+        private boolean closed;
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private record Event(String name, Object data, MediaType mediaType) {
+    }
+}
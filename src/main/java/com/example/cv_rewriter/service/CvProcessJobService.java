@@ -0,0 +1,205 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessJob;
+import com.example.cv_rewriter.entity.CvProcessJobStatus;
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import com.example.cv_rewriter.model.CvJobStatusResponse;
+import com.example.cv_rewriter.model.FeedbackReport;
+import com.example.cv_rewriter.repository.CvProcessJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class CvProcessJobService {
+    private static final Logger log = LoggerFactory.getLogger(CvProcessJobService.class);
+
+    private static final Duration QUEUE_FULL_RETRY_AFTER = Duration.ofSeconds(30);
+    private static final String GENERIC_FAILURE_MESSAGE = "We could not generate your feedback report. Please try again later.";
+
+    private final CvProcessJobRepository cvProcessJobRepository;
+    private final FeedbackReportService feedbackReportService;
+    private final OllamaService ollamaService;
+    private final CvProcessRecordService cvProcessRecordService;
+    private final CvJobEventBroadcaster cvJobEventBroadcaster;
+    private final RenderedReportCache renderedReportCache;
+    private final UploadStore uploadStore;
+    private final PipelineMetrics pipelineMetrics;
+    private final TaskExecutor cvJobExecutor;
+    private final Duration retention;
+    private final Duration staleAfter;
+
+    public CvProcessJobService(
+            CvProcessJobRepository cvProcessJobRepository,
+            FeedbackReportService feedbackReportService,
+            OllamaService ollamaService,
+            CvProcessRecordService cvProcessRecordService,
+            CvJobEventBroadcaster cvJobEventBroadcaster,
+            RenderedReportCache renderedReportCache,
+            UploadStore uploadStore,
+            PipelineMetrics pipelineMetrics,
+            @Qualifier("cvJobExecutor") TaskExecutor cvJobExecutor,
+            @Value("${cv.jobs.retention:24h}") Duration retention,
+            @Value("${cv.jobs.stale-after:1h}") Duration staleAfter
+    ) {
+        this.cvProcessJobRepository = cvProcessJobRepository;
+        this.feedbackReportService = feedbackReportService;
+        this.ollamaService = ollamaService;
+        this.cvProcessRecordService = cvProcessRecordService;
+        this.cvJobEventBroadcaster = cvJobEventBroadcaster;
+        this.renderedReportCache = renderedReportCache;
+        this.uploadStore = uploadStore;
+        this.pipelineMetrics = pipelineMetrics;
+        this.cvJobExecutor = cvJobExecutor;
+        this.retention = retention;
+        this.staleAfter = staleAfter;
+    }
+
+    public CvProcessJob submit(MultipartFile cvFile, String jobDescription, String owner, String userEmail, String userName) {
+        feedbackReportService.validateUpload(cvFile);
+        if (jobDescription == null || jobDescription.isBlank()) {
+            throw new PdfProcessingException("Job description cannot be empty.");
+        }
+
+        UploadStore.StoredUpload upload = storeUpload(cvFile);
+
+        CvProcessJob job = new CvProcessJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setOwner(owner);
+        job.setUserEmail(userEmail);
+        job.setUserName(userName);
+        job.setJobDescription(jobDescription);
+        job.setStatus(CvProcessJobStatus.QUEUED);
+        CvProcessJob savedJob = cvProcessJobRepository.save(job);
+
+        String jobId = savedJob.getId();
+        cvJobEventBroadcaster.open(jobId);
+        try {
+            cvJobExecutor.execute(() -> runJob(jobId, upload));
+        } catch (TaskRejectedException rejectedException) {
+            uploadStore.remove(upload.handle());
+            markFailed(jobId, "Too many CVs are being processed right now.");
+            throw new CapacityExceededException(
+                    "Too many CVs are being processed right now. Please try again later.", QUEUE_FULL_RETRY_AFTER);
+        }
+
+        return savedJob;
+    }
+
+    public Optional<CvProcessJob> findJob(String jobId, String owner) {
+        if (jobId == null || owner == null) {
+            return Optional.empty();
+        }
+        return cvProcessJobRepository.findByIdAndOwner(jobId, owner);
+    }
+
+    void runJob(String jobId, UploadStore.StoredUpload upload) {
+        try {
+            CvProcessJob job = cvProcessJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                log.warn("CV processing job {} disappeared before it could run", jobId);
+                return;
+            }
+
+            job.setStatus(CvProcessJobStatus.RUNNING);
+            job = cvProcessJobRepository.save(job);
+
+            String jobDescription = job.getJobDescription();
+            String cvText = pipelineMetrics.record(PipelineMetrics.EXTRACT,
+                    () -> feedbackReportService.extractCvText(upload.path()));
+            FeedbackReport generated = pipelineMetrics.record(PipelineMetrics.GENERATE, () -> ollamaService.buildFeedbackReport(
+                    jobDescription, cvText, token -> cvJobEventBroadcaster.publishToken(jobId, token)));
+            String feedbackReport = generated.text();
+            // The job keeps only the report text; downloads stream the PDF from the rendered report cache.
+            renderedReportCache.prepare(feedbackReport);
+
+            job.setFeedbackReport(feedbackReport);
+            job.setErrorMessage(null);
+            job.setStatus(CvProcessJobStatus.COMPLETED);
+            job = cvProcessJobRepository.save(job);
+            cvJobEventBroadcaster.complete(jobId, CvJobStatusResponse.from(job));
+
+            recordSuccessfulProcessing(job, generated.cacheKey());
+        } catch (Exception ex) {
+            log.error("CV processing job {} failed", jobId, ex);
+            markFailed(jobId, failureMessage(ex));
+        } finally {
+            uploadStore.remove(upload.handle());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cv.jobs.cleanup-interval:PT10M}")
+    @Transactional
+    public void cleanUpJobs() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        int failed = cvProcessJobRepository.failJobsNotUpdatedSince(
+                EnumSet.of(CvProcessJobStatus.QUEUED, CvProcessJobStatus.RUNNING),
+                now.minus(staleAfter),
+                CvProcessJobStatus.FAILED,
+                "Processing was interrupted. Please submit your CV again.",
+                now
+        );
+        int deleted = cvProcessJobRepository.deleteJobsNotUpdatedSince(
+                EnumSet.of(CvProcessJobStatus.COMPLETED, CvProcessJobStatus.FAILED),
+                now.minus(retention)
+        );
+
+        if (failed > 0 || deleted > 0) {
+            log.info("CV job cleanup marked {} stale job(s) as failed and removed {} expired job(s)", failed, deleted);
+        }
+    }
+
+    private void recordSuccessfulProcessing(CvProcessJob job, String cacheKey) {
+        try {
+            pipelineMetrics.record(PipelineMetrics.PERSIST, () -> cvProcessRecordService.saveSuccessfulProcessing(
+                    job.getUserEmail(), job.getUserName(), job.getJobDescription(), job.getFeedbackReport(), cacheKey));
+        } catch (Exception exception) {
+            log.warn("Failed to persist CV processing history for job {}", job.getId(), exception);
+        }
+    }
+
+    private void markFailed(String jobId, String errorMessage) {
+        try {
+            cvProcessJobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(CvProcessJobStatus.FAILED);
+                job.setErrorMessage(errorMessage);
+                CvProcessJob failedJob = cvProcessJobRepository.save(job);
+                cvJobEventBroadcaster.complete(jobId, CvJobStatusResponse.from(failedJob));
+            });
+        } catch (Exception exception) {
+            log.warn("Failed to mark CV processing job {} as failed", jobId, exception);
+        }
+    }
+
+    private String failureMessage(Exception ex) {
+        if (ex instanceof PdfProcessingException || ex instanceof CapacityExceededException) {
+            return ex.getMessage();
+        }
+        return GENERIC_FAILURE_MESSAGE;
+    }
+
+    private UploadStore.StoredUpload storeUpload(MultipartFile cvFile) {
+        try {
+            return uploadStore.store(cvFile, staleAfter);
+        } catch (IOException ioException) {
+            throw new PdfProcessingException("Failed to read the uploaded CV.");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.repository.CvProcessRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Brings databases created by earlier versions of the entity in line with the current mapping. The schema
+// changes are the two that ddl-auto=update cannot make, so they only run where Hibernate maintains the schema;
+// they run after its update and before lifecycle beans (web server, history writer) start, so nothing is
+// written against the old shape, and a failure there fails startup. Moving old rows' text out of the legacy
+// inline columns happens in the background once the application is up; the entity no longer maps those
+// columns, so they are read here with plain SQL.
+@Component
+public class CvProcessRecordSchemaMigration implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(CvProcessRecordSchemaMigration.class);
+
+    private static final String TABLE = "cv_process_records";
+    private static final String ID_SEQUENCE = "cv_process_records_seq";
+    private static final List<String> LEGACY_TEXT_COLUMNS = List.of("job_description", "feedback_report");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CvProcessRecordRepository cvProcessRecordRepository;
+    private final JobDescriptionStore jobDescriptionStore;
+    private final boolean schemaUpdateEnabled;
+    private final boolean backfillEnabled;
+    private final int backfillBatchSize;
+
+    private final List<String> legacyColumns = new ArrayList<>();
+    private final List<String> legacyLargeObjectColumns = new ArrayList<>();
+    private volatile boolean stopped;
+    private volatile boolean backfillComplete;
+
+    public CvProcessRecordSchemaMigration(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CvProcessRecordRepository cvProcessRecordRepository,
+            JobDescriptionStore jobDescriptionStore,
+            MeterRegistry meterRegistry,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto,
+            @Value("${cv.history.backfill.enabled:true}") boolean backfillEnabled,
+            @Value("${cv.history.backfill.batch-size:100}") int backfillBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cvProcessRecordRepository = cvProcessRecordRepository;
+        this.jobDescriptionStore = jobDescriptionStore;
+        this.schemaUpdateEnabled = "update".equalsIgnoreCase(ddlAuto.trim());
+        this.backfillEnabled = backfillEnabled;
+        this.backfillBatchSize = Math.max(1, backfillBatchSize);
+
+        Gauge.builder("cv.history.backfill.complete", this, migration -> migration.backfillComplete ? 1 : 0)
+                .description("1 once no history record is left in the legacy inline columns")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String column : LEGACY_TEXT_COLUMNS) {
+            Map<String, Object> info = columnInfo(column);
+            if (info.isEmpty()) {
+                continue;
+            }
+            legacyColumns.add(column);
+            if ("oid".equals(info.get("data_type"))) {
+                legacyLargeObjectColumns.add(column);
+            }
+        }
+        if (!schemaUpdateEnabled) {
+            return;
+        }
+        seedIdSequence();
+        relaxLegacyTextColumns();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (legacyColumns.size() < LEGACY_TEXT_COLUMNS.size()) {
+            // Created by a version without the inline columns, or they were dropped once an earlier backfill finished.
+            backfillComplete = true;
+            return;
+        }
+        if (!backfillEnabled) {
+            return;
+        }
+        Thread backfill = new Thread(this::backfill, "cv-history-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isBackfillComplete() {
+        return backfillComplete;
+    }
+
+    // Ids used to come from an identity column; move the pooled sequence past them so new ids cannot collide.
+    private void seedIdSequence() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + TABLE, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long lastValue = jdbcTemplate.queryForObject("select last_value from " + ID_SEQUENCE, Long.class);
+        if (lastValue != null && lastValue >= maxId) {
+            return;
+        }
+        // With is_called = true the next nextval() is maxId + increment, whose pooled block starts at maxId + 1.
+        jdbcTemplate.queryForObject("select setval(cast(? as regclass), ?, true)", Long.class, ID_SEQUENCE, maxId);
+        log.info("Moved {} past existing id {}", ID_SEQUENCE, maxId);
+    }
+
+    // The legacy columns were NOT NULL and new rows no longer write them; ddl-auto=update never relaxes that.
+    private void relaxLegacyTextColumns() {
+        for (String column : LEGACY_TEXT_COLUMNS) {
+            if (!"NO".equals(columnInfo(column).get("is_nullable"))) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("alter table " + TABLE + " alter column " + column + " drop not null");
+                log.info("Dropped NOT NULL from legacy column {}.{}", TABLE, column);
+            } catch (DataAccessException exception) {
+                throw new IllegalStateException("Legacy column " + TABLE + "." + column
+                        + " is NOT NULL and could not be altered; new history records cannot be written until it is"
+                        + " dropped with: alter table " + TABLE + " alter column " + column + " drop not null",
+                        exception);
+            }
+        }
+    }
+
+    private Map<String, Object> columnInfo(String column) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                select is_nullable, data_type from information_schema.columns
+                where table_schema = current_schema() and table_name = ? and column_name = ?
+                """, TABLE, column);
+        return rows.isEmpty() ? Map.of() : rows.get(0);
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int moved = 0;
+        try {
+            while (!stopped) {
+                List<LegacyText> legacyRows = findLegacyAfter(afterId);
+                if (legacyRows.isEmpty()) {
+                    break;
+                }
+                long firstId = legacyRows.get(0).id();
+                long lastId = legacyRows.get(legacyRows.size() - 1).id();
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<CvProcessRecord> records = moveLegacyText(legacyRows);
+                    jobDescriptionStore.attach(records);
+                    cvProcessRecordRepository.saveAllAndFlush(records);
+                    clearLegacyText(firstId, lastId);
+                });
+                moved += legacyRows.size();
+                afterId = lastId;
+            }
+        } catch (RuntimeException exception) {
+            log.error("Moving legacy history text stopped after {} record(s); it resumes on the next start", moved,
+                    exception);
+            return;
+        }
+        if (stopped) {
+            return;
+        }
+
+        backfillComplete = true;
+        log.info("Moved {} history record(s) out of the legacy inline columns; none are left. The columns are no"
+                + " longer read and can be dropped with: alter table {} drop column job_description,"
+                + " drop column feedback_report", moved, TABLE);
+    }
+
+    private List<LegacyText> findLegacyAfter(long afterId) {
+        return jdbcTemplate.query("select id, " + legacyText("job_description") + " as job_description, "
+                        + legacyText("feedback_report") + " as feedback_report from " + TABLE
+                        + " where id > ? and feedback_report_deflated is null and feedback_report is not null"
+                        + " order by id limit ?",
+                (row, rowNumber) -> new LegacyText(
+                        row.getLong("id"), row.getString("job_description"), row.getString("feedback_report")),
+                afterId, backfillBatchSize);
+    }
+
+    private String legacyText(String column) {
+        return legacyLargeObjectColumns.contains(column) ? "convert_from(lo_get(" + column + "), 'UTF8')" : column;
+    }
+
+    private List<CvProcessRecord> moveLegacyText(List<LegacyText> legacyRows) {
+        Map<Long, CvProcessRecord> records = new HashMap<>();
+        cvProcessRecordRepository.findAllById(legacyRows.stream().map(LegacyText::id).toList())
+                .forEach(record -> records.put(record.getId(), record));
+
+        List<CvProcessRecord> moved = new ArrayList<>(legacyRows.size());
+        for (LegacyText legacy : legacyRows) {
+            CvProcessRecord record = records.get(legacy.id());
+            if (record == null) {
+                continue;
+            }
+            record.setFeedbackReport(legacy.feedbackReport());
+            if (record.getStoredJobDescription() == null) {
+                record.setJobDescription(legacy.jobDescription());
+            }
+            if (record.getJobPreview() == null) {
+                record.setJobPreview(CvProcessRecordService.jobPreview(legacy.jobDescription()));
+            }
+            moved.add(record);
+        }
+        return moved;
+    }
+
+    private void clearLegacyText(long firstId, long lastId) {
+        String migrated = " from " + TABLE + " where id between ? and ? and feedback_report_deflated is not null";
+        for (String column : legacyLargeObjectColumns) {
+            // Nulling an oid column only drops the reference; the large object itself has to be unlinked.
+            jdbcTemplate.queryForList("select lo_unlink(" + column + ")" + migrated + " and " + column + " is not null",
+                    firstId, lastId);
+        }
+        jdbcTemplate.update("update " + TABLE + " set job_description = null, feedback_report = null"
+                + " where id between ? and ? and feedback_report_deflated is not null", firstId, lastId);
+    }
+
+    private record LegacyText(long id, String jobDescription, String feedbackReport) {
+    }
+}
@@ -1,49 +1,136 @@
 package com.example.cv_rewriter.service;
 
 import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.model.CvHistoryPage;
+import com.example.cv_rewriter.model.CvProcessRecordSummary;
 import com.example.cv_rewriter.repository.CvProcessRecordRepository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class CvProcessRecordService {
 
     private static final int DEFAULT_HISTORY_LIMIT = 10;
+    private static final int MAX_HISTORY_LIMIT = 50;
+    private static final int JOB_PREVIEW_LENGTH = 120;
 
     private final CvProcessRecordRepository cvProcessRecordRepository;
+    private final CvProcessRecordWriter cvProcessRecordWriter;
 
-    public CvProcessRecordService(CvProcessRecordRepository cvProcessRecordRepository) {
+    public CvProcessRecordService(
+            CvProcessRecordRepository cvProcessRecordRepository,
+            CvProcessRecordWriter cvProcessRecordWriter
+    ) {
         this.cvProcessRecordRepository = cvProcessRecordRepository;
+        this.cvProcessRecordWriter = cvProcessRecordWriter;
     }
 
-    @Transactional
     public void saveSuccessfulProcessing(String userEmail, String userName, String jobDescription, String feedbackReport) {
+        saveSuccessfulProcessing(userEmail, userName, jobDescription, feedbackReport, null);
+    }
+
+    public void saveSuccessfulProcessing(
+            String userEmail,
+            String userName,
+            String jobDescription,
+            String feedbackReport,
+            String cacheKey
+    ) {
         CvProcessRecord record = new CvProcessRecord();
         record.setUserEmail(safeTrim(userEmail));
         record.setUserName(safeTrim(userName));
         record.setJobDescription(jobDescription);
+        record.setJobPreview(jobPreview(jobDescription));
         record.setFeedbackReport(feedbackReport);
+        record.setCacheKey(cacheKey);
+        record.setCreatedAt(OffsetDateTime.now(ZoneOffset.UTC));
+
+        cvProcessRecordWriter.enqueue(record);
+    }
 
-        cvProcessRecordRepository.save(record);
+    @Transactional(readOnly = true)
+    public CvHistoryPage fetchRecentHistory(String userEmail) {
+        return fetchHistoryPage(userEmail, null, DEFAULT_HISTORY_LIMIT);
     }
 
     @Transactional(readOnly = true)
-    public List<CvProcessRecord> fetchRecentHistory(String userEmail) {
+    public CvHistoryPage fetchHistoryPage(String userEmail, String cursor, Integer size) {
         if (userEmail == null || userEmail.isBlank()) {
-            return Collections.emptyList();
+            return CvHistoryPage.empty();
+        }
+
+        int pageSize = size == null ? DEFAULT_HISTORY_LIMIT : Math.max(1, Math.min(size, MAX_HISTORY_LIMIT));
+        // Fetch one extra row to learn whether another page exists without a count query.
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        Optional<HistoryCursor> position = HistoryCursor.decode(cursor);
+        List<CvProcessRecordSummary> rows = position
+                .map(after -> cvProcessRecordRepository.findSummariesBefore(userEmail, after.createdAt(), after.id(), pageable))
+                .orElseGet(() -> cvProcessRecordRepository.findSummaries(userEmail, pageable));
+
+        if (rows.size() <= pageSize) {
+            return new CvHistoryPage(rows, null);
         }
 
-        Pageable pageable = PageRequest.of(0, DEFAULT_HISTORY_LIMIT);
-        return cvProcessRecordRepository.findAllByUserEmailOrderByCreatedAtDesc(userEmail, pageable);
+        List<CvProcessRecordSummary> items = rows.subList(0, pageSize);
+        CvProcessRecordSummary last = items.get(items.size() - 1);
+        return new CvHistoryPage(List.copyOf(items), new HistoryCursor(last.createdAt(), last.id()).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> findFeedbackReport(Long recordId, String userEmail) {
+        if (recordId == null || userEmail == null || userEmail.isBlank()) {
+            return Optional.empty();
+        }
+        return cvProcessRecordRepository.findByIdAndUserEmail(recordId, userEmail)
+                .map(CvProcessRecord::getFeedbackReport);
+    }
+
+    // Also used to fill in previews for records written before the column existed.
+    static String jobPreview(String jobDescription) {
+        if (jobDescription == null) {
+            return null;
+        }
+        String collapsed = jobDescription.strip().replaceAll("\\s+", " ");
+        return collapsed.length() <= JOB_PREVIEW_LENGTH
+                ? collapsed
+                : collapsed.substring(0, JOB_PREVIEW_LENGTH - 3) + "...";
     }
 
     private String safeTrim(String value) {
         return value == null ? null : value.trim();
     }
-}
 
+    private record HistoryCursor(OffsetDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Optional<HistoryCursor> decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return Optional.empty();
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return Optional.of(new HistoryCursor(
+                        OffsetDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1))));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException exception) {
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.repository.CvProcessRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class CvProcessRecordWriter implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CvProcessRecordWriter.class);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private final CvProcessRecordRepository cvProcessRecordRepository;
+    private final JobDescriptionStore jobDescriptionStore;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<CvProcessRecord> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public CvProcessRecordWriter(
+            CvProcessRecordRepository cvProcessRecordRepository,
+            JobDescriptionStore jobDescriptionStore,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cv.history.write-behind.queue-capacity:1000}") int queueCapacity,
+            @Value("${cv.history.write-behind.overflow-policy:block}") String overflowPolicy,
+            @Value("${cv.history.write-behind.block-timeout:2s}") Duration blockTimeout,
+            @Value("${cv.history.write-behind.batch-size:50}") int batchSize,
+            @Value("${cv.history.write-behind.flush-interval:1s}") Duration flushInterval,
+            @Value("${cv.history.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+            @Value("${cv.history.write-behind.max-attempts:3}") int maxAttempts,
+            @Value("${cv.history.write-behind.retry-backoff:200ms}") Duration retryBackoff
+    ) {
+        this.cvProcessRecordRepository = cvProcessRecordRepository;
+        this.jobDescriptionStore = jobDescriptionStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.blockTimeout = blockTimeout;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+
+        Gauge.builder("cv.history.write_behind.queued", queue, BlockingQueue::size)
+                .description("History records waiting to be written")
+                .register(meterRegistry);
+        this.written = writeCounter(meterRegistry, "written");
+        this.dropped = writeCounter(meterRegistry, "dropped");
+        this.failed = writeCounter(meterRegistry, "failed");
+    }
+
+    public void enqueue(CvProcessRecord record) {
+        if (!running) {
+            writeBatch(List.of(record));
+            return;
+        }
+
+        boolean accepted;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                accepted = queue.offer(record, blockTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(record);
+        }
+
+        if (!accepted) {
+            dropped.increment();
+            log.warn("History write-behind queue is full; dropping record for {}", record.getUserEmail());
+        } else if (!running && queue.remove(record)) {
+            // The writer shut down between the check above and the offer; write it ourselves.
+            writeBatch(List.of(record));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "cv-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("History writer did not finish within {}; {} record(s) may be lost", shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server and job executors so records from in-flight requests are still flushed.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<CvProcessRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                CvProcessRecord first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        List<CvProcessRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+    }
+
+    private void writeBatch(List<CvProcessRecord> batch) {
+        try {
+            saveWithRetry(batch);
+            written.increment(batch.size());
+            return;
+        } catch (Exception exception) {
+            if (batch.size() == 1) {
+                failed.increment();
+                log.error("Failed to write history record for {}", batch.get(0).getUserEmail(), exception);
+                return;
+            }
+            log.warn("Failed to write {} history record(s) as a batch; writing them one at a time", batch.size(), exception);
+        }
+
+        // One bad record must not take the rest of the batch down with it.
+        for (CvProcessRecord record : batch) {
+            try {
+                saveWithRetry(List.of(record));
+                written.increment();
+            } catch (Exception exception) {
+                failed.increment();
+                log.error("Failed to write history record for {}", record.getUserEmail(), exception);
+            }
+        }
+    }
+
+    private void saveWithRetry(List<CvProcessRecord> records) {
+        long backoffMillis = retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Job descriptions are stored with the records that reference them, so a failed write leaves none behind.
+                transactionTemplate.executeWithoutResult(status -> {
+                    jobDescriptionStore.attach(records);
+                    cvProcessRecordRepository.saveAll(records);
+                });
+                return;
+            } catch (RuntimeException exception) {
+                // A rolled-back insert leaves the ids it was assigned on the entities, and the job descriptions it
+                // attached may not exist any more; saving them again would update rows that are not there.
+                records.forEach(record -> {
+                    record.setId(null);
+                    record.setStoredJobDescription(null);
+                });
+                if (attempt >= maxAttempts || !isTransient(exception)) {
+                    throw exception;
+                }
+                log.warn("Transient failure writing {} history record(s), retrying in {} ms (attempt {}/{})",
+                        records.size(), backoffMillis, attempt, maxAttempts, exception);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw exception;
+                }
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable exception) {
+        return exception instanceof TransientDataAccessException
+                || exception instanceof RecoverableDataAccessException
+                || exception instanceof DataAccessResourceFailureException
+                || exception instanceof CannotCreateTransactionException;
+    }
+
+    private Counter writeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cv.history.write_behind.records")
+                .description("History records handled by the write-behind writer")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
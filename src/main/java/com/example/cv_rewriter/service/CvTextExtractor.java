@@ -0,0 +1,10 @@
+package com.example.cv_rewriter.service;
+
+import java.nio.file.Path;
+
+public interface CvTextExtractor {
+
+    boolean supports(String mediaType);
+
+    String extract(Path file);
+}
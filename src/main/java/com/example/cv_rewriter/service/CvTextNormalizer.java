@@ -0,0 +1,304 @@
+package com.example.cv_rewriter.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class CvTextNormalizer {
+    // Extractors that know page boundaries end each page with this; headers and footers are only looked for there.
+    public static final String PAGE_BREAK = "\f";
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MIN_FURNITURE_REPEATS = 3;
+    private static final int MAX_FURNITURE_LENGTH = 80;
+    private static final int PAGE_EDGE_LINES = 2;
+    private static final int MAX_HEADING_LENGTH = 40;
+    private static final int MIN_PARTIAL_SECTION_TOKENS = 50;
+
+    private static final Pattern HYPHENATED_LINE_BREAK = Pattern.compile("((?:\\p{L}+-)*\\p{L}+)-\\n\\s*(\\p{Ll}\\p{L}*)");
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[\\t\\x0B\\f\\u00A0\\u2007\\u202F ]+");
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("[\\p{Cntrl}&&[^\\n]]");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+    private static final Pattern PAGE_LABEL = Pattern.compile(
+            "(?i)^(page\\s*\\d{1,3}(\\s*(of|/)\\s*\\d{1,3})?|\\d{1,3}\\s*(of|/)\\s*\\d{1,3}|-\\s*\\d{1,3}\\s*-)$");
+    private static final Pattern BARE_PAGE_NUMBER = Pattern.compile("^\\d{1,3}$");
+
+    // A line-end hyphen after one of these (or after an earlier hyphen) joins a compound and is kept.
+    private static final Set<String> COMPOUND_FIRST_WORDS = Set.of(
+            "self", "well", "high", "low", "long", "short", "full", "part", "cross", "multi", "non", "co", "e",
+            "hands", "front", "back", "end", "real", "fast", "detail", "results", "data", "goal", "team", "customer",
+            "client", "user", "cost", "time", "problem", "decision", "world", "best", "first", "mid", "senior",
+            "entry", "on", "in", "open", "award", "object", "peer", "cutting", "day", "up", "state", "year");
+
+    // ... as is one before one of these, which are words in their own right rather than the tail of a split word.
+    private static final Set<String> COMPOUND_SECOND_WORDS = Set.of(
+            "driven", "native", "based", "oriented", "focused", "facing", "minded", "motivated", "starter", "level",
+            "time", "term", "stack", "scale", "end", "up", "on", "off", "friendly", "aware", "ready", "critical",
+            "related", "specific", "wide", "free", "first", "source", "service", "learning", "making", "solving",
+            "known", "led", "owned", "managed", "hosted", "spoken", "edge", "sensitive", "intensive", "heavy",
+            "agnostic", "centric", "enabled", "powered", "tier", "class", "date", "house", "shore", "site");
+
+    // Lower value is kept first when the CV does not fit the token budget.
+    private static final Map<String, Integer> SECTION_PRIORITIES = sectionPriorities();
+    private static final int HEADER_PRIORITY = 3;
+
+    private final int cvTokenBudget;
+    private final int jobDescriptionTokenBudget;
+    private final Set<String> compoundWords;
+
+    public CvTextNormalizer(
+            @Value("${cv.prompt.cv-token-budget:2500}") int cvTokenBudget,
+            @Value("${cv.prompt.job-description-token-budget:800}") int jobDescriptionTokenBudget,
+            @Value("${cv.prompt.compound-words:}") List<String> compoundWords
+    ) {
+        this.cvTokenBudget = Math.max(1, cvTokenBudget);
+        this.jobDescriptionTokenBudget = Math.max(1, jobDescriptionTokenBudget);
+        this.compoundWords = new HashSet<>();
+        for (String word : compoundWords) {
+            if (!word.isBlank()) {
+                this.compoundWords.add(word.strip().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    public String normalizeCv(String cvText) {
+        String normalized = normalize(cvText, true);
+        if (estimateTokens(normalized) <= cvTokenBudget) {
+            return normalized;
+        }
+        return trimBySectionPriority(normalized, cvTokenBudget);
+    }
+
+    public String normalizeJobDescription(String jobDescription) {
+        String normalized = normalize(jobDescription, false);
+        return truncateToTokens(normalized, jobDescriptionTokenBudget);
+    }
+
+    static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private String normalize(String text, boolean removePageFurniture) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+
+        String unified = text.replace("\r\n", "\n").replace('\r', '\n');
+        List<String[]> pages = new ArrayList<>();
+        for (String page : removePageFurniture ? unified.split(PAGE_BREAK) : new String[] {unified}) {
+            String cleaned = HORIZONTAL_WHITESPACE.matcher(page).replaceAll(" ");
+            cleaned = CONTROL_CHARACTERS.matcher(cleaned).replaceAll("");
+            cleaned = rejoinHyphenatedWords(cleaned);
+            String[] lines = cleaned.split("\n");
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = lines[i].strip();
+            }
+            pages.add(lines);
+        }
+
+        Map<String, Integer> repeats = removePageFurniture ? countPageEdgeLines(pages) : Map.of();
+        int minRepeats = Math.min(MIN_FURNITURE_REPEATS, pages.size());
+
+        StringBuilder normalized = new StringBuilder(unified.length());
+        for (String[] lines : pages) {
+            boolean[] edges = removePageFurniture ? pageEdges(lines) : new boolean[lines.length];
+            for (int i = 0; i < lines.length; i++) {
+                if (edges[i] && isPageFurniture(lines[i], repeats, minRepeats, pages.size())) {
+                    continue;
+                }
+                normalized.append(lines[i]).append('\n');
+            }
+            normalized.append('\n');
+        }
+
+        return BLANK_LINES.matcher(normalized).replaceAll("\n\n").strip();
+    }
+
+    // "develop-\nment" becomes "development", but "self-\nmotivated" and "cloud-\nnative" keep their hyphen.
+    private String rejoinHyphenatedWords(String text) {
+        return HYPHENATED_LINE_BREAK.matcher(text).replaceAll(match -> {
+            String fragment = match.group(1);
+            String next = match.group(2);
+            boolean compound = fragment.indexOf('-') >= 0 || isCompoundPart(fragment, COMPOUND_FIRST_WORDS)
+                    || isCompoundPart(next, COMPOUND_SECOND_WORDS);
+            return Matcher.quoteReplacement(fragment + (compound ? "-" : "") + next);
+        });
+    }
+
+    private boolean isCompoundPart(String word, Set<String> builtIn) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        return builtIn.contains(lower) || compoundWords.contains(lower);
+    }
+
+    // The first and last few non-empty lines of a page, where running headers, footers and page numbers sit.
+    private boolean[] pageEdges(String[] lines) {
+        boolean[] edges = new boolean[lines.length];
+        for (int i = 0, found = 0; i < lines.length && found < PAGE_EDGE_LINES; i++) {
+            if (!lines[i].isEmpty()) {
+                edges[i] = true;
+                found++;
+            }
+        }
+        for (int i = lines.length - 1, found = 0; i >= 0 && found < PAGE_EDGE_LINES; i--) {
+            if (!lines[i].isEmpty()) {
+                edges[i] = true;
+                found++;
+            }
+        }
+        return edges;
+    }
+
+    // Counts, per line, the number of pages it appears on at the top or bottom.
+    private Map<String, Integer> countPageEdgeLines(List<String[]> pages) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String[] lines : pages) {
+            boolean[] edges = pageEdges(lines);
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < lines.length; i++) {
+                if (edges[i] && lines[i].length() <= MAX_FURNITURE_LENGTH && seen.add(lines[i])) {
+                    counts.merge(lines[i], 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private boolean isPageFurniture(String line, Map<String, Integer> repeats, int minRepeats, int pageCount) {
+        if (PAGE_LABEL.matcher(line).matches()) {
+            return true;
+        }
+        // A lone number is only taken for a page number when the text is known to span pages.
+        if (pageCount > 1 && BARE_PAGE_NUMBER.matcher(line).matches()) {
+            return true;
+        }
+        return minRepeats > 1 && repeats.getOrDefault(line, 0) >= minRepeats;
+    }
+
+    private String trimBySectionPriority(String text, int tokenBudget) {
+        List<Section> sections = splitSections(text);
+
+        List<Section> byPriority = new ArrayList<>(sections);
+        byPriority.sort((left, right) -> Integer.compare(left.priority, right.priority));
+
+        int remaining = tokenBudget;
+        for (Section section : byPriority) {
+            int tokens = estimateTokens(section.text);
+            if (tokens <= remaining) {
+                section.kept = section.text;
+                remaining -= tokens;
+            } else if (remaining >= MIN_PARTIAL_SECTION_TOKENS) {
+                section.kept = truncateToTokens(section.text, remaining);
+                remaining = 0;
+            }
+        }
+
+        StringBuilder trimmed = new StringBuilder();
+        for (Section section : sections) {
+            if (section.kept != null && !section.kept.isEmpty()) {
+                if (!trimmed.isEmpty()) {
+                    trimmed.append("\n\n");
+                }
+                trimmed.append(section.kept);
+            }
+        }
+        return trimmed.toString();
+    }
+
+    private List<Section> splitSections(String text) {
+        List<Section> sections = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentPriority = HEADER_PRIORITY;
+
+        for (String line : text.split("\n")) {
+            Integer headingPriority = headingPriority(line);
+            if (headingPriority != null && !current.isEmpty()) {
+                sections.add(new Section(current.toString().strip(), currentPriority));
+                current.setLength(0);
+            }
+            if (headingPriority != null) {
+                currentPriority = headingPriority;
+            }
+            current.append(line).append('\n');
+        }
+        if (!current.isEmpty()) {
+            sections.add(new Section(current.toString().strip(), currentPriority));
+        }
+        return sections;
+    }
+
+    private Integer headingPriority(String line) {
+        if (line.isEmpty() || line.length() > MAX_HEADING_LENGTH || line.endsWith(".")) {
+            return null;
+        }
+        String heading = line.replaceAll("[^\\p{L} &/]", "").strip().toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Integer> entry : SECTION_PRIORITIES.entrySet()) {
+            if (heading.equals(entry.getKey()) || heading.startsWith(entry.getKey() + " ")) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String truncateToTokens(String text, int tokenBudget) {
+        int maxChars = tokenBudget * CHARS_PER_TOKEN;
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        int cut = text.lastIndexOf('\n', maxChars);
+        if (cut < maxChars / 2) {
+            cut = text.lastIndexOf(' ', maxChars);
+        }
+        return text.substring(0, cut > 0 ? cut : maxChars).strip();
+    }
+
+    private static Map<String, Integer> sectionPriorities() {
+        Map<String, Integer> priorities = new LinkedHashMap<>();
+        priorities.put("professional experience", 0);
+        priorities.put("work experience", 0);
+        priorities.put("employment history", 0);
+        priorities.put("work history", 0);
+        priorities.put("experience", 0);
+        priorities.put("technical skills", 1);
+        priorities.put("core competencies", 1);
+        priorities.put("skills", 1);
+        priorities.put("professional summary", 2);
+        priorities.put("summary", 2);
+        priorities.put("profile", 2);
+        priorities.put("about me", 2);
+        priorities.put("objective", 2);
+        priorities.put("projects", 3);
+        priorities.put("education", 4);
+        priorities.put("certifications", 4);
+        priorities.put("qualifications", 4);
+        priorities.put("publications", 5);
+        priorities.put("awards", 5);
+        priorities.put("volunteering", 6);
+        priorities.put("languages", 6);
+        priorities.put("interests", 7);
+        priorities.put("hobbies", 7);
+        priorities.put("references", 8);
+        return priorities;
+    }
+
+    private static final class Section {
+        private final String text;
+        private final int priority;
+        private String kept;
+
+        private Section(String text, int priority) {
+            this.text = text;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.cv_rewriter.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out a fixed number of permits, serving waiting users by deficit round-robin: every request costs one
+// unit and each user's turn is worth its weight, so a user with weight 4 gets four permits per round to
+// everyone else's one, no matter how many requests either has queued.
+final class FairShareQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int maxPermits;
+    private final Map<String, UserQueue> queues = new HashMap<>();
+    private final Deque<UserQueue> rotation = new ArrayDeque<>();
+    private int available;
+    private int waiting;
+
+    FairShareQueue(int maxPermits) {
+        this.maxPermits = maxPermits;
+        this.available = maxPermits;
+    }
+
+    boolean acquire(String user, String tier, int weight, Duration maxWait) throws InterruptedException {
+        lock.lock();
+        try {
+            if (available > 0 && rotation.isEmpty()) {
+                available--;
+                return true;
+            }
+
+            UserQueue queue = queues.computeIfAbsent(user, key -> new UserQueue(key, tier));
+            queue.weight = Math.max(1, weight);
+            if (queue.waiters.isEmpty()) {
+                rotation.addLast(queue);
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.waiters.addLast(waiter);
+            waiting++;
+
+            long remainingNanos = maxWait.toNanos();
+            try {
+                while (!waiter.granted && remainingNanos > 0) {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException interruptedException) {
+                if (waiter.granted) {
+                    // The permit is already ours; keep it and let the caller see the interrupt later.
+                    Thread.currentThread().interrupt();
+                    return true;
+                }
+                abandon(queue, waiter);
+                throw interruptedException;
+            }
+
+            if (!waiter.granted) {
+                abandon(queue, waiter);
+            }
+            return waiter.granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            available = Math.min(maxPermits, available + 1);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return maxPermits - available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waitingInTier(String tier) {
+        lock.lock();
+        try {
+            int count = 0;
+            for (UserQueue queue : rotation) {
+                if (queue.tier.equals(tier)) {
+                    count += queue.waiters.size();
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waitingUsers() {
+        lock.lock();
+        try {
+            return rotation.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        while (available > 0 && !rotation.isEmpty()) {
+            UserQueue queue = rotation.peekFirst();
+            if (queue.deficit == 0) {
+                queue.deficit = queue.weight;
+            }
+
+            Waiter waiter = queue.waiters.pollFirst();
+            queue.deficit--;
+            waiting--;
+            available--;
+            waiter.granted = true;
+            waiter.condition.signal();
+
+            if (queue.waiters.isEmpty()) {
+                rotation.pollFirst();
+                queues.remove(queue.user);
+                queue.deficit = 0;
+            } else if (queue.deficit == 0) {
+                rotation.addLast(rotation.pollFirst());
+            }
+        }
+    }
+
+    private void abandon(UserQueue queue, Waiter waiter) {
+        if (queue.waiters.remove(waiter)) {
+            waiting--;
+        }
+        if (queue.waiters.isEmpty()) {
+            rotation.remove(queue);
+            queues.remove(queue.user);
+            queue.deficit = 0;
+        }
+    }
+
+    private static final class UserQueue {
+        private final String user;
+        private final String tier;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int weight = 1;
+        private int deficit;
+
+        private UserQueue(String user, String tier) {
+            this.user = user;
+            this.tier = tier;
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
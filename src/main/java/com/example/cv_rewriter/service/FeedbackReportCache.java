@@ -0,0 +1,152 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.repository.CvProcessRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+@Service
+public class FeedbackReportCache {
+    private static final Logger log = LoggerFactory.getLogger(FeedbackReportCache.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final CvProcessRecordRepository cvProcessRecordRepository;
+    private final Cache<String, String> memoryCache;
+    private final boolean databaseTierEnabled;
+    private final Duration databaseMaxAge;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public FeedbackReportCache(
+            CvProcessRecordRepository cvProcessRecordRepository,
+            MeterRegistry meterRegistry,
+            @Value("${feedback.cache.max-entries:500}") long maxEntries,
+            @Value("${feedback.cache.ttl:6h}") Duration ttl,
+            @Value("${feedback.cache.database-tier.enabled:true}") boolean databaseTierEnabled,
+            @Value("${feedback.cache.database-tier.max-age:7d}") Duration databaseMaxAge
+    ) {
+        this.cvProcessRecordRepository = cvProcessRecordRepository;
+        this.databaseTierEnabled = databaseTierEnabled;
+        this.databaseMaxAge = databaseMaxAge;
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryCache, "feedbackReports");
+        this.memoryHits = lookupCounter(meterRegistry, "hit", "memory");
+        this.databaseHits = lookupCounter(meterRegistry, "hit", "database");
+        this.misses = lookupCounter(meterRegistry, "miss", "none");
+    }
+
+    public String keyFor(String model, String promptTemplate, Map<String, Object> options, String jobDescription, String cvText) {
+        StringBuilder material = new StringBuilder()
+                .append(model).append(FIELD_SEPARATOR)
+                .append(promptTemplate != null ? promptTemplate : "").append(FIELD_SEPARATOR)
+                .append(options != null ? new TreeMap<>(options) : "").append(FIELD_SEPARATOR)
+                .append(normalize(jobDescription)).append(FIELD_SEPARATOR)
+                .append(normalize(cvText));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        Optional<String> cached = getFromMemory(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        if (databaseTierEnabled) {
+            Optional<String> stored = findInDatabase(key);
+            if (stored.isPresent()) {
+                databaseHits.increment();
+                memoryCache.put(key, stored.get());
+                return stored;
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // Memory tier only, for callers that just missed in get() and only need to catch a report cached since.
+    public Optional<String> getFromMemory(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        String cached = memoryCache.getIfPresent(key);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        memoryHits.increment();
+        return Optional.of(cached);
+    }
+
+    public void put(String key, String feedbackReport) {
+        if (key == null || feedbackReport == null || feedbackReport.isBlank()) {
+            return;
+        }
+        memoryCache.put(key, feedbackReport);
+    }
+
+    private Optional<String> findInDatabase(String key) {
+        try {
+            OffsetDateTime createdAfter = OffsetDateTime.now(ZoneOffset.UTC).minus(databaseMaxAge);
+            return cvProcessRecordRepository.findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(key, createdAfter)
+                    .map(CvProcessRecord::getFeedbackReport)
+                    .filter(report -> !report.isBlank());
+        } catch (Exception exception) {
+            log.warn("Feedback cache database lookup failed; falling back to generation", exception);
+            return Optional.empty();
+        }
+    }
+
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.strip()).replaceAll(" ");
+    }
+
+    private Counter lookupCounter(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("feedback.cache.lookups")
+                .description("Feedback report cache lookups")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
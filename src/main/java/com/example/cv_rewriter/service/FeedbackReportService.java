@@ -1,55 +1,131 @@
 package com.example.cv_rewriter.service;
 
 import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.detect.DefaultDetector;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.awt.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
 
 @Service
 public class FeedbackReportService {
+    private static final Logger log = LoggerFactory.getLogger(FeedbackReportService.class);
+
+    // Part of the rendered PDF cache key; bump whenever the report layout changes.
+    public static final String RENDERER_VERSION = "1";
+
     private static final float DEFAULT_MARGIN = 50f;
     private static final float DEFAULT_FONT_SIZE = 12f;
     private static final float LEADING_MULTIPLIER = 1.4f;
 
+    private final List<CvTextExtractor> cvTextExtractors;
+    private final Detector contentTypeDetector = new DefaultDetector();
+    private final MemoryUsageSetting renderMemoryUsage;
+
+    public FeedbackReportService(
+            List<CvTextExtractor> cvTextExtractors,
+            @Value("${pdf.render.max-main-memory:1MB}") DataSize maxMainMemory
+    ) {
+        this.cvTextExtractors = cvTextExtractors;
+        this.renderMemoryUsage = MemoryUsageSetting.setupMixed(maxMainMemory.toBytes());
+    }
+
     public String extractCvText(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new PdfProcessingException("No file uploaded.");
+        requireUpload(file);
+        Path cvFile = null;
+        try {
+            cvFile = Files.createTempFile("cv-extract-", ".upload");
+            try (InputStream is = file.getInputStream()) {
+                Files.copy(is, cvFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return extractCvText(cvFile);
+        } catch (IOException e) {
+            throw new PdfProcessingException("Failed to read the uploaded CV.");
+        } finally {
+            deleteQuietly(cvFile);
         }
-        if (!"application/pdf".equals(file.getContentType())) {
-            throw new PdfProcessingException("Only PDF files are supported.");
+    }
+
+    public String extractCvText(Path cvFile) {
+        String mediaType;
+        try (InputStream stream = TikaInputStream.get(cvFile)) {
+            mediaType = detectMediaType(stream);
+        } catch (IOException e) {
+            throw new PdfProcessingException("Failed to read the uploaded CV.");
         }
-        try (InputStream is = file.getInputStream();
-             PDDocument document = PDDocument.load(is)) {
-            return new PDFTextStripper().getText(document);
+        return extractorFor(mediaType).extract(cvFile);
+    }
+
+    public void validateUpload(MultipartFile file) {
+        requireUpload(file);
+        try (InputStream stream = TikaInputStream.get(file.getInputStream())) {
+            extractorFor(detectMediaType(stream));
         } catch (IOException e) {
-            throw new PdfProcessingException("Failed to read PDF content.");
+            throw new PdfProcessingException("Failed to read the uploaded CV.");
+        }
+    }
+
+    private void requireUpload(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new PdfProcessingException("No file uploaded.");
         }
     }
 
+    private String detectMediaType(InputStream stream) throws IOException {
+        return contentTypeDetector.detect(stream, new Metadata()).getBaseType().toString();
+    }
+
+    private CvTextExtractor extractorFor(String mediaType) {
+        return cvTextExtractors.stream()
+                .filter(extractor -> extractor.supports(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new PdfProcessingException(
+                        "Unsupported file type. Please upload a PDF, Word, OpenDocument, RTF or HTML document."));
+    }
+
     public byte[] renderFeedbackReportPdf(String reportText) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        renderFeedbackReportPdf(reportText, baos);
+        return baos.toByteArray();
+    }
+
+    public void validateReport(String reportText) {
         if (reportText == null || reportText.isBlank()) {
             throw new PdfProcessingException("No report content to render.");
         }
+    }
+
+    public void renderFeedbackReportPdf(String reportText, OutputStream out) {
+        validateReport(reportText);
 
         PDFont font = PDType1Font.HELVETICA;
         float fontSize = DEFAULT_FONT_SIZE;
 
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        try (PDDocument document = new PDDocument(renderMemoryUsage)) {
 
             PDPage page = new PDPage(PDRectangle.LETTER);
             document.addPage(page);
@@ -58,6 +134,7 @@ public class FeedbackReportService {
             float maxWidth = page.getMediaBox().getWidth() - 2 * DEFAULT_MARGIN;
             float yPosition = page.getMediaBox().getHeight() - DEFAULT_MARGIN;
 
+            ReportLineWrapper lineWrapper = new ReportLineWrapper(font, fontSize, maxWidth);
             PDPageContentStream contentStream = openContentStream(document, page, font, fontSize);
 
             for (String line : normalizeLines(reportText)) {
@@ -65,7 +142,7 @@ public class FeedbackReportService {
                     continue;
                 }
 
-                List<String> wrappedLines = wrapLine(line, font, fontSize, maxWidth);
+                List<String> wrappedLines = lineWrapper.wrap(line);
                 if (wrappedLines.isEmpty()) {
                     wrappedLines = List.of("");
                 }
@@ -81,9 +158,8 @@ public class FeedbackReportService {
                         contentStream = openContentStream(document, page, font, fontSize);
                     }
 
-                    String sanitized = sanitizeText(font, wrappedLine);
-                    if (!sanitized.isEmpty()) {
-                        contentStream.showText(sanitized);
+                    if (!wrappedLine.isEmpty()) {
+                        contentStream.showText(wrappedLine);
                     }
                     contentStream.newLineAtOffset(0, -leading);
                     yPosition -= leading;
@@ -93,9 +169,8 @@ public class FeedbackReportService {
             contentStream.endText();
             contentStream.close();
 
-            document.save(baos);
-            return baos.toByteArray();
-        } catch (IOException e) {
+            document.save(out);
+        } catch (IOException | UncheckedIOException e) {
             throw new PdfProcessingException("Failed to generate feedback PDF report.");
         }
     }
@@ -110,105 +185,18 @@ public class FeedbackReportService {
         return contentStream;
     }
 
-    private List<String> normalizeLines(String reportText) {
-        return Arrays.asList(reportText.replace("\r", "").split("\n"));
-    }
-
-    private List<String> wrapLine(String line, PDFont font, float fontSize, float maxWidth) throws IOException {
-        if (line.isBlank()) {
-            return new ArrayList<>();
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
         }
-
-        String trimmed = line.stripTrailing();
-        PrefixParts prefixParts = detectPrefix(trimmed);
-
-        List<String> wrapped = new ArrayList<>();
-        String[] words = prefixParts.body.isEmpty() ? new String[0] : prefixParts.body.split("\\s+");
-
-        StringBuilder current = new StringBuilder(prefixParts.firstLinePrefix);
-        for (String word : words) {
-            if (word.isBlank()) {
-                continue;
-            }
-            String candidate = current.length() == prefixParts.firstLinePrefix.length()
-                    ? current + word
-                    : current + " " + word;
-
-            if (stringWidth(font, fontSize, candidate) > maxWidth) {
-                if (current.length() > prefixParts.firstLinePrefix.length()) {
-                    wrapped.add(current.toString());
-                    current = new StringBuilder(prefixParts.continuationPrefix).append(word);
-                } else {
-                    current.append(word);
-                }
-            } else {
-                if (current.length() > prefixParts.firstLinePrefix.length()) {
-                    current.append(' ');
-                }
-                current.append(word);
-            }
-        }
-
-        if (current.length() > 0) {
-            wrapped.add(current.toString());
-        } else if (prefixParts.firstLinePrefix.length() > 0) {
-            wrapped.add(prefixParts.firstLinePrefix.stripTrailing());
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ioException) {
+            log.warn("Failed to delete temporary PDF {}", path, ioException);
         }
-
-        return wrapped;
     }
 
-    private PrefixParts detectPrefix(String line) {
-        int firstContentIndex = 0;
-        while (firstContentIndex < line.length() && Character.isWhitespace(line.charAt(firstContentIndex))) {
-            firstContentIndex++;
-        }
-
-        String leadingWhitespace = line.substring(0, firstContentIndex);
-        String body = line.substring(firstContentIndex);
-
-        String bullet = "";
-        if (body.startsWith("- ") || body.startsWith("* ") || body.startsWith("• ")) {
-            bullet = body.substring(0, 2);
-            body = body.substring(2).stripLeading();
-        }
-
-        String firstLinePrefix = leadingWhitespace + bullet;
-        String continuationPrefix = leadingWhitespace;
-        if (!bullet.isEmpty()) {
-            continuationPrefix = leadingWhitespace + "  ";
-        }
-
-        return new PrefixParts(firstLinePrefix, continuationPrefix, body);
-    }
-
-    private float stringWidth(PDFont font, float fontSize, String text) throws IOException {
-        String sanitized = sanitizeText(font, text);
-        return font.getStringWidth(sanitized) / 1000 * fontSize;
-    }
-
-    private String sanitizeText(PDFont font, String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '•') {
-                builder.append('-');
-                continue;
-            }
-
-            if (isAsciiPrintable(c)) {
-                builder.append(c);
-            }
-        }
-        return builder.toString();
-    }
-
-    private boolean isAsciiPrintable(char c) {
-        return c >= 32 && c <= 126;
+    private List<String> normalizeLines(String reportText) {
+        return Arrays.asList(reportText.replace("\r", "").split("\n"));
     }
-
-    private record PrefixParts(String firstLinePrefix, String continuationPrefix, String body) { }
 }
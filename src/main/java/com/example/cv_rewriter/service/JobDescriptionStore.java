@@ -0,0 +1,59 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.entity.JobDescription;
+import com.example.cv_rewriter.repository.JobDescriptionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class JobDescriptionStore {
+
+    private final JobDescriptionRepository jobDescriptionRepository;
+
+    public JobDescriptionStore(JobDescriptionRepository jobDescriptionRepository) {
+        this.jobDescriptionRepository = jobDescriptionRepository;
+    }
+
+    // Runs in the caller's transaction so a job description is only kept if the records referencing it are.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void attach(List<CvProcessRecord> records) {
+        Map<String, JobDescription> resolved = new HashMap<>();
+        for (CvProcessRecord record : records) {
+            String text = record.getJobDescription();
+            if (record.getStoredJobDescription() != null || text == null) {
+                continue;
+            }
+            record.setStoredJobDescription(resolved.computeIfAbsent(contentHash(text), hash -> resolve(hash, text)));
+        }
+    }
+
+    private JobDescription resolve(String contentHash, String text) {
+        return jobDescriptionRepository.findByContentHash(contentHash)
+                .orElseGet(() -> insert(contentHash, text));
+    }
+
+    // If another writer stores the same text first, the unique hash fails this transaction; the caller writes the
+    // records again and then finds the other writer's row.
+    private JobDescription insert(String contentHash, String text) {
+        return jobDescriptionRepository.save(new JobDescription(contentHash, text));
+    }
+
+    private String contentHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.OllamaRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+@Component
+public class OllamaClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final Duration streamIdleTimeout;
+    // Closes stalled streams; HttpRequest.timeout only covers the wait for response headers.
+    private final ScheduledExecutorService streamWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ollama-stream-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OllamaClient(
+            @Qualifier("ollamaHttpClient") HttpClient httpClient,
+            ObjectMapper objectMapper,
+            @Value("${ollama.http.request-timeout:120s}") Duration requestTimeout,
+            @Value("${ollama.http.stream-idle-timeout:30s}") Duration streamIdleTimeout
+    ) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+        this.streamIdleTimeout = streamIdleTimeout;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamWatchdog.shutdownNow();
+    }
+
+    public JsonNode post(String baseUrl, String path, Object body) {
+        return await(postAsync(baseUrl, path, body, requestTimeout));
+    }
+
+    public CompletableFuture<JsonNode> postAsync(String baseUrl, String path, Object body) {
+        return postAsync(baseUrl, path, body, requestTimeout);
+    }
+
+    public CompletableFuture<JsonNode> postAsync(String baseUrl, String path, Object body, Duration timeout) {
+        HttpRequest request;
+        try {
+            request = jsonRequest(baseUrl, path, body, timeout);
+        } catch (JsonProcessingException jsonProcessingException) {
+            return CompletableFuture.failedFuture(
+                    new OllamaRequestException("Failed to serialize Ollama " + path + " request", jsonProcessingException));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw transportFailure(path, error);
+                    }
+                    return readResponse(path, response.statusCode(), response.body());
+                });
+    }
+
+    public CompletableFuture<JsonNode> getAsync(String baseUrl, String path, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw transportFailure(path, error);
+                    }
+                    return readResponse(path, response.statusCode(), response.body());
+                });
+    }
+
+    public void postStream(String baseUrl, String path, Object body, Consumer<JsonNode> chunkHandler) {
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(jsonRequest(baseUrl, path, body, requestTimeout),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new OllamaRequestException("Interrupted while calling Ollama " + path + " endpoint", interruptedException);
+        } catch (IOException ioException) {
+            throw transportFailure(path, ioException);
+        }
+
+        StreamDeadline deadline = new StreamDeadline(response.body(), requestTimeout, streamIdleTimeout);
+        long checkMillis = Math.max(100, Math.min(1000, streamIdleTimeout.toMillis() / 2));
+        ScheduledFuture<?> watchdog = streamWatchdog.scheduleWithFixedDelay(
+                deadline::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+
+        try (InputStream is = response.body()) {
+            if (response.statusCode() >= 400) {
+                readResponse(path, response.statusCode(), is.readAllBytes());
+            }
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            boolean done = false;
+            while (!done && (line = reader.readLine()) != null) {
+                deadline.touch();
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                JsonNode chunk = objectMapper.readTree(line);
+                if (chunk.hasNonNull("error")) {
+                    throw new OllamaRequestException("Ollama error: " + chunk.get("error").asText(), 500);
+                }
+
+                chunkHandler.accept(chunk);
+                done = chunk.path("done").asBoolean(false);
+            }
+            if (!done && deadline.expiry() != null) {
+                throw streamTimeout(path, deadline, null);
+            }
+        } catch (IOException ioException) {
+            if (deadline.expiry() != null) {
+                throw streamTimeout(path, deadline, ioException);
+            }
+            throw transportFailure(path, ioException);
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    private OllamaRequestException streamTimeout(String path, StreamDeadline deadline, IOException cause) {
+        return new OllamaRequestException("Timed out reading Ollama " + path + " stream (" + deadline.expiry() + ")", cause);
+    }
+
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException completionException) {
+            Throwable cause = completionException.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new OllamaRequestException("Ollama request failed", cause);
+        }
+    }
+
+    private HttpRequest jsonRequest(String baseUrl, String path, Object body, Duration timeout) throws JsonProcessingException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private JsonNode readResponse(String path, int statusCode, byte[] body) {
+        JsonNode responseBody = parse(body);
+        if (statusCode >= 400) {
+            String error = responseBody != null && responseBody.hasNonNull("error")
+                    ? responseBody.get("error").asText()
+                    : "HTTP " + statusCode;
+            throw new OllamaRequestException("Ollama error: " + error, statusCode);
+        }
+        if (responseBody == null) {
+            throw new OllamaRequestException("Empty response from Ollama " + path + " endpoint", statusCode);
+        }
+        return responseBody;
+    }
+
+    private JsonNode parse(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException ioException) {
+            return null;
+        }
+    }
+
+    private OllamaRequestException transportFailure(String path, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof OllamaRequestException ollamaRequestException) {
+            return ollamaRequestException;
+        }
+        if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException) {
+            return new OllamaRequestException("Timed out calling Ollama " + path + " endpoint", cause);
+        }
+        return new OllamaRequestException("Failed to call Ollama " + path + " endpoint", cause);
+    }
+
+    private static final class StreamDeadline {
+        private final InputStream body;
+        private final long deadlineNanos;
+        private final long idleNanos;
+        private volatile long lastActivityNanos = System.nanoTime();
+        private volatile String expiry;
+
+        private StreamDeadline(InputStream body, Duration total, Duration idle) {
+            this.body = body;
+            this.deadlineNanos = lastActivityNanos + total.toNanos();
+            this.idleNanos = idle.toNanos();
+        }
+
+        void touch() {
+            lastActivityNanos = System.nanoTime();
+        }
+
+        String expiry() {
+            return expiry;
+        }
+
+        void check() {
+            if (expiry != null) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - deadlineNanos > 0) {
+                expiry = "overall deadline passed";
+            } else if (now - lastActivityNanos > idleNanos) {
+                expiry = "no data for " + Duration.ofNanos(idleNanos).toSeconds() + "s";
+            } else {
+                return;
+            }
+            // Closing the body unblocks the reader, which then sees the expiry.
+            try {
+                body.close();
+            } catch (IOException ignored) {
+                // The reader fails either way.
+            }
+        }
+    }
+}
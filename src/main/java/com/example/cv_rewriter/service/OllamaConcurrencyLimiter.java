@@ -0,0 +1,211 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Waiting requests are admitted per user by deficit round-robin (see FairShareQueue), weighted by the user's
+// tier, so one user's backlog cannot starve everyone else's requests.
+@Component
+public class OllamaConcurrencyLimiter {
+    private static final String ANONYMOUS_USER = "anonymous";
+
+    private final Map<String, ModelGate> gates = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int defaultMaxInFlight;
+    private final Map<String, Integer> modelMaxInFlight;
+    private final int maxQueueSize;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Map<String, Integer> tierWeights;
+    private final Map<String, String> userTiers;
+    private final String defaultTier;
+
+    public OllamaConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${ollama.admission.max-in-flight:4}") int defaultMaxInFlight,
+            @Value("${ollama.admission.model-max-in-flight:}") String modelMaxInFlight,
+            @Value("${ollama.admission.max-queue-size:20}") int maxQueueSize,
+            @Value("${ollama.admission.max-wait:30s}") Duration maxWait,
+            @Value("${ollama.admission.retry-after:15s}") Duration retryAfter,
+            @Value("${ollama.admission.tier-weights:standard=1}") String tierWeights,
+            @Value("${ollama.admission.user-tiers:}") String userTiers,
+            @Value("${ollama.admission.default-tier:standard}") String defaultTier
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.defaultMaxInFlight = Math.max(1, defaultMaxInFlight);
+        this.modelMaxInFlight = parseModelLimits(modelMaxInFlight);
+        this.maxQueueSize = Math.max(0, maxQueueSize);
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.tierWeights = parseAssignments(tierWeights, "ollama.admission.tier-weights", Integer::parseInt);
+        this.userTiers = parseAssignments(userTiers, "ollama.admission.user-tiers",
+                tier -> tier.toLowerCase(Locale.ROOT));
+        this.defaultTier = defaultTier.trim().toLowerCase(Locale.ROOT);
+        this.tierWeights.putIfAbsent(this.defaultTier, 1);
+        for (String tier : this.userTiers.values()) {
+            if (!this.tierWeights.containsKey(tier)) {
+                throw new IllegalStateException("ollama.admission.user-tiers refers to unknown tier: " + tier);
+            }
+        }
+    }
+
+    public Permit acquire(String model) {
+        ModelGate gate = gates.computeIfAbsent(model, this::createGate);
+        String user = currentUser();
+        String tier = userTiers.getOrDefault(user, defaultTier);
+
+        if (gate.pending.incrementAndGet() > gate.maxInFlight + maxQueueSize) {
+            gate.pending.decrementAndGet();
+            throw reject(gate);
+        }
+
+        long start = System.nanoTime();
+        boolean admitted = false;
+        try {
+            admitted = gate.queue.acquire(user, tier, tierWeights.get(tier), maxWait);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!admitted) {
+                gate.pending.decrementAndGet();
+            }
+        }
+
+        if (!admitted) {
+            throw reject(gate);
+        }
+        waitTimer(model, tier).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit(gate);
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return ANONYMOUS_USER;
+        }
+        Object email = authentication.getPrincipal() instanceof OAuth2User oauthUser
+                ? oauthUser.getAttribute("email")
+                : null;
+        return (email != null ? email.toString() : authentication.getName()).toLowerCase(Locale.ROOT);
+    }
+
+    private Timer waitTimer(String model, String tier) {
+        return Timer.builder("ollama.admission.wait")
+                .description("Time generation requests waited for admission")
+                .tag("model", model)
+                .tag("tier", tier)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private CapacityExceededException reject(ModelGate gate) {
+        gate.rejected.increment();
+        return new CapacityExceededException(
+                "Our feedback service is busy right now. Please try again in about " + retryAfter.toSeconds() + " seconds.",
+                retryAfter);
+    }
+
+    private ModelGate createGate(String model) {
+        int maxInFlight = modelMaxInFlight.getOrDefault(model, defaultMaxInFlight);
+        ModelGate gate = new ModelGate(maxInFlight, new FairShareQueue(maxInFlight), Counter.builder("ollama.admission.rejected")
+                .description("Generation requests rejected because the model queue was full")
+                .tag("model", model)
+                .register(meterRegistry));
+
+        Gauge.builder("ollama.admission.in_flight", gate, g -> g.queue.inFlight())
+                .description("Generation requests currently admitted for a model")
+                .tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("ollama.admission.waiting", gate, g -> g.queue.waiting())
+                .description("Generation requests waiting for admission for a model")
+                .tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("ollama.admission.waiting_users", gate, g -> g.queue.waitingUsers())
+                .description("Users with at least one generation request waiting for a model")
+                .tag("model", model)
+                .register(meterRegistry);
+        for (String tier : tierWeights.keySet()) {
+            Gauge.builder("ollama.admission.tier_waiting", gate, g -> g.queue.waitingInTier(tier))
+                    .description("Generation requests waiting for admission, by user tier")
+                    .tag("model", model)
+                    .tag("tier", tier)
+                    .register(meterRegistry);
+        }
+        return gate;
+    }
+
+    private <T> Map<String, T> parseAssignments(String value, String property, Function<String, T> parser) {
+        Map<String, T> assignments = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return assignments;
+        }
+
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalStateException("Invalid " + property + " entry: " + entry);
+            }
+            assignments.put(entry.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+                    parser.apply(entry.substring(separator + 1).trim()));
+        }
+        return assignments;
+    }
+
+    private Map<String, Integer> parseModelLimits(String value) {
+        Map<String, Integer> limits = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return limits;
+        }
+
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalStateException("Invalid ollama.admission.model-max-in-flight entry: " + entry);
+            }
+            limits.put(entry.substring(0, separator).trim(), Math.max(1, Integer.parseInt(entry.substring(separator + 1).trim())));
+        }
+        return limits;
+    }
+
+    // pending counts admitted and waiting requests so the queue bound can be checked before waiting.
+    private record ModelGate(int maxInFlight, FairShareQueue queue, AtomicInteger pending, Counter rejected) {
+        private ModelGate(int maxInFlight, FairShareQueue queue, Counter rejected) {
+            this(maxInFlight, queue, new AtomicInteger(), rejected);
+        }
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final ModelGate gate;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(ModelGate gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                gate.pending.decrementAndGet();
+                gate.queue.release();
+            }
+        }
+    }
+}
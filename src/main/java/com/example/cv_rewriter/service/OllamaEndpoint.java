@@ -0,0 +1,74 @@
+package com.example.cv_rewriter.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class OllamaEndpoint {
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final String baseUrl;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile double averageLatencyMillis;
+    private volatile boolean ejected;
+    private volatile long ejectedAtNanos;
+
+    OllamaEndpoint(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public double averageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    boolean isAvailable(long ejectionNanos) {
+        return !ejected || System.nanoTime() - ejectedAtNanos >= ejectionNanos;
+    }
+
+    void begin() {
+        inFlight.incrementAndGet();
+    }
+
+    void end() {
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void recordLatency(long latencyNanos) {
+        double latencyMillis = latencyNanos / 1_000_000d;
+        averageLatencyMillis = averageLatencyMillis == 0
+                ? latencyMillis
+                : averageLatencyMillis + LATENCY_SMOOTHING * (latencyMillis - averageLatencyMillis);
+    }
+
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+        ejected = false;
+    }
+
+    boolean recordFailure(int failureThreshold) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            ejectedAtNanos = System.nanoTime();
+            boolean newlyEjected = !ejected;
+            ejected = true;
+            return newlyEjected;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
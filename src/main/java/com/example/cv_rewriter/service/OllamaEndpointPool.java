@@ -0,0 +1,221 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.OllamaRequestException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+@Component
+public class OllamaEndpointPool {
+    private static final Logger log = LoggerFactory.getLogger(OllamaEndpointPool.class);
+
+    private static final String HEALTH_PATH = "/api/tags";
+
+    public enum RoutingStrategy {
+        LEAST_OUTSTANDING,
+        LATENCY_WEIGHTED
+    }
+
+    private final OllamaClient ollamaClient;
+    private final List<OllamaEndpoint> endpoints;
+    private final RoutingStrategy routingStrategy;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+    private final Duration probeTimeout;
+    private final int maxAttempts;
+    private final Set<OllamaEndpoint> probing = ConcurrentHashMap.newKeySet();
+
+    public OllamaEndpointPool(
+            OllamaClient ollamaClient,
+            MeterRegistry meterRegistry,
+            @Value("${ollama.base-urls:${ollama.base-url:http://localhost:11434}}") String baseUrls,
+            @Value("${ollama.routing.strategy:least-outstanding}") String routingStrategy,
+            @Value("${ollama.routing.max-attempts:2}") int maxAttempts,
+            @Value("${ollama.health.failure-threshold:3}") int failureThreshold,
+            @Value("${ollama.health.ejection-duration:30s}") Duration ejectionDuration,
+            @Value("${ollama.health.timeout:2s}") Duration probeTimeout
+    ) {
+        this.ollamaClient = ollamaClient;
+        this.endpoints = Arrays.stream(baseUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .distinct()
+                .map(OllamaEndpoint::new)
+                .toList();
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("At least one Ollama base URL must be configured");
+        }
+
+        this.routingStrategy = RoutingStrategy.valueOf(routingStrategy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.ejectionNanos = ejectionDuration.toNanos();
+        this.probeTimeout = probeTimeout;
+
+        for (OllamaEndpoint endpoint : endpoints) {
+            Gauge.builder("ollama.endpoint.in_flight", endpoint, OllamaEndpoint::inFlight)
+                    .description("Generation requests currently outstanding against an Ollama endpoint")
+                    .tag("endpoint", endpoint.baseUrl())
+                    .register(meterRegistry);
+            Gauge.builder("ollama.endpoint.ejected", endpoint, e -> e.isEjected() ? 1 : 0)
+                    .description("Whether an Ollama endpoint is currently ejected from routing")
+                    .tag("endpoint", endpoint.baseUrl())
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<OllamaEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    public <T> T execute(Function<String, T> call, BooleanSupplier retryAllowed) {
+        Set<OllamaEndpoint> tried = ConcurrentHashMap.newKeySet();
+        while (true) {
+            OllamaEndpoint endpoint = select(tried);
+            long start = System.nanoTime();
+            endpoint.begin();
+            try {
+                T result = call.apply(endpoint.baseUrl());
+                recordOutcome(endpoint, System.nanoTime() - start, null);
+                return result;
+            } catch (RuntimeException exception) {
+                recordOutcome(endpoint, System.nanoTime() - start, exception);
+                tried.add(endpoint);
+                if (!shouldRetry(exception, tried) || !retryAllowed.getAsBoolean()) {
+                    throw exception;
+                }
+                log.warn("Ollama endpoint {} failed; retrying on another endpoint", endpoint, exception);
+            } finally {
+                endpoint.end();
+            }
+        }
+    }
+
+    public <T> CompletableFuture<T> executeAsync(Function<String, CompletableFuture<T>> call) {
+        return executeAsync(call, ConcurrentHashMap.newKeySet());
+    }
+
+    private <T> CompletableFuture<T> executeAsync(Function<String, CompletableFuture<T>> call, Set<OllamaEndpoint> tried) {
+        OllamaEndpoint endpoint;
+        try {
+            endpoint = select(tried);
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+
+        long start = System.nanoTime();
+        endpoint.begin();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = call.apply(endpoint.baseUrl());
+        } catch (RuntimeException exception) {
+            attempt = CompletableFuture.failedFuture(exception);
+        }
+
+        return attempt.handle((result, error) -> {
+            endpoint.end();
+            Throwable cause = unwrap(error);
+            recordOutcome(endpoint, System.nanoTime() - start, cause);
+            if (cause == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+
+            tried.add(endpoint);
+            if (shouldRetry(cause, tried)) {
+                log.warn("Ollama endpoint {} failed; retrying on another endpoint", endpoint, cause);
+                return executeAsync(call, tried);
+            }
+            return CompletableFuture.<T>failedFuture(cause);
+        }).thenCompose(Function.identity());
+    }
+
+    // Probes complete on the HTTP client's threads, so the shared scheduler thread only starts them and never waits.
+    @Scheduled(fixedDelayString = "${ollama.health.interval:PT15S}")
+    public void probeEndpoints() {
+        for (OllamaEndpoint endpoint : endpoints) {
+            // An endpoint slower to answer than the interval keeps one probe outstanding rather than piling them up.
+            if (!probing.add(endpoint)) {
+                continue;
+            }
+            CompletableFuture<?> probe;
+            try {
+                probe = ollamaClient.getAsync(endpoint.baseUrl(), HEALTH_PATH, probeTimeout);
+            } catch (RuntimeException exception) {
+                probe = CompletableFuture.failedFuture(exception);
+            }
+            probe.whenComplete((tags, error) -> {
+                probing.remove(endpoint);
+                if (error == null) {
+                    if (endpoint.isEjected()) {
+                        log.info("Ollama endpoint {} passed its health check and is back in rotation", endpoint);
+                    }
+                    endpoint.recordSuccess();
+                } else if (endpoint.recordFailure(failureThreshold)) {
+                    log.warn("Ollama endpoint {} failed its health check and was ejected", endpoint, unwrap(error));
+                }
+            });
+        }
+    }
+
+    private OllamaEndpoint select(Set<OllamaEndpoint> tried) {
+        Comparator<OllamaEndpoint> preference = routingStrategy == RoutingStrategy.LATENCY_WEIGHTED
+                ? Comparator.comparingDouble(this::latencyWeightedScore)
+                : Comparator.comparingInt(OllamaEndpoint::inFlight)
+                        .thenComparingDouble(OllamaEndpoint::averageLatencyMillis);
+
+        return endpoints.stream()
+                .filter(endpoint -> !tried.contains(endpoint) && endpoint.isAvailable(ejectionNanos))
+                .min(preference)
+                .or(() -> endpoints.stream().filter(endpoint -> !tried.contains(endpoint)).min(preference))
+                .orElseThrow(() -> new OllamaRequestException("No Ollama endpoint is available", 503));
+    }
+
+    private double latencyWeightedScore(OllamaEndpoint endpoint) {
+        double latency = endpoint.averageLatencyMillis() > 0 ? endpoint.averageLatencyMillis() : 1;
+        return (endpoint.inFlight() + 1) * latency;
+    }
+
+    private void recordOutcome(OllamaEndpoint endpoint, long latencyNanos, Throwable error) {
+        if (error == null) {
+            endpoint.recordLatency(latencyNanos);
+            endpoint.recordSuccess();
+            return;
+        }
+
+        if (isRetriable(error) && endpoint.recordFailure(failureThreshold)) {
+            log.warn("Ollama endpoint {} ejected after {} consecutive failures", endpoint, failureThreshold);
+        }
+    }
+
+    private boolean shouldRetry(Throwable error, Set<OllamaEndpoint> tried) {
+        return isRetriable(error) && tried.size() < maxAttempts && tried.size() < endpoints.size();
+    }
+
+    private boolean isRetriable(Throwable error) {
+        return error instanceof OllamaRequestException ollamaRequestException && ollamaRequestException.isRetriable();
+    }
+
+    private Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
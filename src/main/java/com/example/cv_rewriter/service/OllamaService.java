@@ -1,85 +1,449 @@
 package com.example.cv_rewriter.service;
 
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.OllamaRequestException;
+import com.example.cv_rewriter.model.FeedbackReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class OllamaService {
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final Logger log = LoggerFactory.getLogger(OllamaService.class);
 
-    private final String ollamaBaseUrl;
+    private static final Map<String, Object> FEEDBACK_OPTIONS = Map.of(
+            "temperature", 0.4,
+            "top_p", 0.9
+    );
+
+    // Sent as the system field so every request shares an identical prefix that Ollama can keep cached.
+    private static final String FEEDBACK_SYSTEM_PROMPT = "You are a professional career coach. Review the candidate's CV against the job description and "
+            + "produce a concise feedback report. The report must contain the following sections in Markdown format:\n"
+            + "# CV Feedback Summary\n"
+            + "## Overall Impression\n"
+            + "## Strengths\n"
+            + "- bullet list of strong points\n"
+            + "## Gaps or Concerns\n"
+            + "- bullet list of weaknesses or missing information\n"
+            + "## Recommended Improvements\n"
+            + "- bullet list of specific, actionable improvements\n"
+            + "## Keywords To Incorporate\n"
+            + "- bullet list of keywords from the job description that should appear in the CV\n"
+            + "Ensure all advice is factual, based only on the provided CV and job description. Do not rewrite the CV.";
+
+    private static final String REPORT_TITLE = "# CV Feedback Summary";
+
+    // Canonical order of the sections in a merged report.
+    private static final List<ReportSection> REPORT_SECTIONS = List.of(
+            new ReportSection("Overall Impression",
+                    "Write two or three sentences on how well the CV matches the job description."),
+            new ReportSection("Strengths",
+                    "Write a bullet list of the candidate's strongest points for this role."),
+            new ReportSection("Gaps or Concerns",
+                    "Write a bullet list of weaknesses or information missing for this role."),
+            new ReportSection("Recommended Improvements",
+                    "Write a bullet list of specific, actionable improvements to the CV."),
+            new ReportSection("Keywords To Incorporate",
+                    "Write a bullet list of keywords from the job description that should appear in the CV.")
+    );
+
+    // Shared by every section request so the job description and CV prefix stays cached across them.
+    private static final String SECTION_SYSTEM_PROMPT = "You are a professional career coach reviewing a candidate's CV "
+            + "against a job description. Write only the section you are asked for, in Markdown, without a heading. "
+            + "Ensure all advice is factual, based only on the provided CV and job description. Do not rewrite the CV.";
+
+    private static final String SECTION_UNAVAILABLE = "_This section could not be generated. Please try again._";
+
+    private static final String GENERATE_PATH = "/api/generate";
+
+    private final OllamaClient ollamaClient;
+    private final OllamaEndpointPool ollamaEndpointPool;
+    private final OllamaConcurrencyLimiter ollamaConcurrencyLimiter;
+    private final FeedbackReportCache feedbackReportCache;
+    private final PipelineMetrics pipelineMetrics;
+    private final CvTextNormalizer cvTextNormalizer;
     private final String defaultModel;
+    private final String keepAlive;
+    private final boolean warmUpEnabled;
+    private final Duration warmUpTimeout;
+    private final boolean sectionedReports;
+    private final Map<String, Object> sectionOptions;
+    // Everything about the prompts except the inputs, so editing a prompt stops serving reports cached under the old one.
+    private final String promptTemplate;
+    private final Duration coalescedMaxWait;
+    private final Duration retryAfter;
+    // Reports being generated right now, by cache key, so identical concurrent requests share one generation.
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlightReports = new ConcurrentHashMap<>();
 
     public OllamaService(
-            @Value("${ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
-            @Value("${ollama.model:qwen2.5:0.5b}") String defaultModel
+            OllamaClient ollamaClient,
+            OllamaEndpointPool ollamaEndpointPool,
+            OllamaConcurrencyLimiter ollamaConcurrencyLimiter,
+            FeedbackReportCache feedbackReportCache,
+            PipelineMetrics pipelineMetrics,
+            CvTextNormalizer cvTextNormalizer,
+            @Value("${ollama.model:qwen2.5:0.5b}") String defaultModel,
+            @Value("${ollama.keep-alive:30m}") String keepAlive,
+            @Value("${ollama.warm-up.enabled:true}") boolean warmUpEnabled,
+            @Value("${ollama.warm-up.timeout:120s}") Duration warmUpTimeout,
+            @Value("${ollama.sections.enabled:false}") boolean sectionedReports,
+            @Value("${ollama.sections.num-predict:256}") int sectionNumPredict,
+            @Value("${ollama.coalescing.max-wait:150s}") Duration coalescedMaxWait,
+            @Value("${ollama.admission.retry-after:15s}") Duration retryAfter
     ) {
-        this.ollamaBaseUrl = ollamaBaseUrl;
+        this.ollamaClient = ollamaClient;
+        this.ollamaEndpointPool = ollamaEndpointPool;
+        this.ollamaConcurrencyLimiter = ollamaConcurrencyLimiter;
+        this.feedbackReportCache = feedbackReportCache;
+        this.pipelineMetrics = pipelineMetrics;
+        this.cvTextNormalizer = cvTextNormalizer;
         this.defaultModel = defaultModel;
+        this.keepAlive = keepAlive;
+        this.warmUpEnabled = warmUpEnabled;
+        this.warmUpTimeout = warmUpTimeout;
+        this.sectionedReports = sectionedReports;
+        this.coalescedMaxWait = coalescedMaxWait;
+        this.retryAfter = retryAfter;
+
+        Map<String, Object> sectionOptions = new HashMap<>(FEEDBACK_OPTIONS);
+        sectionOptions.put("num_predict", Math.max(1, sectionNumPredict));
+        this.sectionOptions = Map.copyOf(sectionOptions);
+
+        StringBuilder template = new StringBuilder();
+        if (sectionedReports) {
+            template.append(SECTION_SYSTEM_PROMPT);
+            REPORT_SECTIONS.forEach(section -> template.append('\n').append(sectionPrompt(section, "", "")));
+        } else {
+            template.append(FEEDBACK_SYSTEM_PROMPT).append('\n').append(feedbackPrompt("", ""));
+        }
+        this.promptTemplate = template.toString();
     }
 
-    public String buildFeedbackReport(String jobDescription, String cvText) {
-        String prompt = "You are a professional career coach. Review the candidate's CV against the job description and "
-                + "produce a concise feedback report. The report must contain the following sections in Markdown format:\n"
-                + "# CV Feedback Summary\n"
-                + "## Overall Impression\n"
-                + "## Strengths\n"
-                + "- bullet list of strong points\n"
-                + "## Gaps or Concerns\n"
-                + "- bullet list of weaknesses or missing information\n"
-                + "## Recommended Improvements\n"
-                + "- bullet list of specific, actionable improvements\n"
-                + "## Keywords To Incorporate\n"
-                + "- bullet list of keywords from the job description that should appear in the CV\n"
-                + "Ensure all advice is factual, based only on the provided CV and job description. Do not rewrite the CV.\n\n"
-                + "Job Description:\n" + jobDescription + "\n\nCV:\n" + cvText + "\n\nFeedback Report:";
+    public FeedbackReport buildFeedbackReport(String jobDescription, String cvText) {
+        PromptInput input = PromptInput.of(cvTextNormalizer, jobDescription, cvText);
+        String cacheKey = feedbackCacheKey(input);
+        Optional<String> cachedReport = feedbackReportCache.get(cacheKey);
+        if (cachedReport.isPresent()) {
+            return new FeedbackReport(cachedReport.get(), cacheKey);
+        }
+
+        return singleFlight(cacheKey, report -> { }, () -> sectionedReports
+                ? generateSections(input, cacheKey, section -> { })
+                : new FeedbackReport(OllamaClient.await(generateAsync(
+                        FEEDBACK_SYSTEM_PROMPT, feedbackPrompt(input.jobDescription(), input.cvText()), FEEDBACK_OPTIONS)),
+                        cacheKey));
+    }
 
-        Map<String, Object> options = new HashMap<>();
-        options.put("temperature", 0.4);
-        options.put("top_p", 0.9);
+    public FeedbackReport buildFeedbackReport(String jobDescription, String cvText, Consumer<String> tokenListener) {
+        PromptInput input = PromptInput.of(cvTextNormalizer, jobDescription, cvText);
+        String cacheKey = feedbackCacheKey(input);
+        Optional<String> cachedReport = feedbackReportCache.get(cacheKey);
+        if (cachedReport.isPresent()) {
+            tokenListener.accept(cachedReport.get());
+            return new FeedbackReport(cachedReport.get(), cacheKey);
+        }
 
-        return generate(prompt, options);
+        return singleFlight(cacheKey, tokenListener, () -> sectionedReports
+                ? generateSections(input, cacheKey, tokenListener)
+                : new FeedbackReport(generateStream(FEEDBACK_SYSTEM_PROMPT,
+                        feedbackPrompt(input.jobDescription(), input.cvText()), FEEDBACK_OPTIONS, tokenListener),
+                        cacheKey));
     }
 
-    public String generate(String prompt, Map<String, Object> options) {
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", defaultModel);
-        requestBody.put("prompt", prompt);
-        requestBody.put("stream", false);
+    // The first caller for a key generates; callers arriving while it runs wait for its result (or failure)
+    // and receive the finished report in one piece. A partial report is not shared: waiting callers are
+    // released with null and generate their own, as they do when the leader was turned away at admission.
+    private FeedbackReport singleFlight(String cacheKey, Consumer<String> followerListener, Supplier<FeedbackReport> generation) {
+        boolean coalesced = false;
+        while (true) {
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> inFlight = inFlightReports.putIfAbsent(cacheKey, pending);
+            if (inFlight == null) {
+                // A leader that finished after our cache miss has already cached its report and left the registry.
+                Optional<String> cachedReport = feedbackReportCache.getFromMemory(cacheKey);
+                if (cachedReport.isPresent()) {
+                    pending.complete(cachedReport.get());
+                    inFlightReports.remove(cacheKey, pending);
+                    followerListener.accept(cachedReport.get());
+                    return new FeedbackReport(cachedReport.get(), cacheKey);
+                }
+                return lead(cacheKey, pending, generation);
+            }
 
-        if (options != null && !options.isEmpty()) {
-            requestBody.put("options", options);
+            if (!coalesced) {
+                pipelineMetrics.recordCoalesced(defaultModel);
+                coalesced = true;
+            }
+            String feedbackReport;
+            try {
+                feedbackReport = awaitLeader(inFlight);
+            } catch (CapacityExceededException exception) {
+                // The leader's rejection says nothing about whether this request would be admitted.
+                continue;
+            }
+            if (feedbackReport != null) {
+                followerListener.accept(feedbackReport);
+                return new FeedbackReport(feedbackReport, cacheKey);
+            }
+        }
+    }
+
+    private String awaitLeader(CompletableFuture<String> inFlight) {
+        try {
+            return inFlight.get(coalescedMaxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException timeoutException) {
+            throw new CapacityExceededException(
+                    "Timed out waiting for an identical report that is still being generated", retryAfter);
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new OllamaRequestException("Ollama request failed", executionException.getCause());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new OllamaRequestException("Interrupted waiting for an identical report", interruptedException);
+        }
+    }
+
+    private FeedbackReport lead(String cacheKey, CompletableFuture<String> pending, Supplier<FeedbackReport> generation) {
+        try {
+            FeedbackReport feedbackReport = generation.get();
+            if (feedbackReport.partial()) {
+                pending.complete(null);
+                return feedbackReport;
+            }
+            // Cache before leaving the registry so a request arriving in between still avoids a new generation.
+            feedbackReportCache.put(cacheKey, feedbackReport.text());
+            pending.complete(feedbackReport.text());
+            return feedbackReport;
+        } catch (RuntimeException | Error exception) {
+            pending.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlightReports.remove(cacheKey, pending);
+        }
+    }
+
+    private String feedbackCacheKey(PromptInput input) {
+        Map<String, Object> options = sectionedReports ? sectionOptions : FEEDBACK_OPTIONS;
+        return feedbackReportCache.keyFor(defaultModel, promptTemplate, options, input.jobDescription(), input.cvText());
+    }
+
+    private String feedbackPrompt(String jobDescription, String cvText) {
+        return "Job Description:\n" + jobDescription + "\n\nCV:\n" + cvText + "\n\nFeedback Report:";
+    }
+
+    // Sections are generated concurrently and merged in canonical order; a failed section gets a placeholder
+    // (and makes the report partial) unless every section failed. Completed sections are passed to the listener
+    // in order. Admission is for the whole report: a section turned away by the limiter rejects the report before
+    // anything is sent, rather than becoming a placeholder; sections already started finish in the background
+    // and release their permits.
+    private FeedbackReport generateSections(PromptInput input, String cacheKey, Consumer<String> sectionListener) {
+        List<CompletableFuture<String>> sections = new ArrayList<>(REPORT_SECTIONS.size());
+        for (ReportSection section : REPORT_SECTIONS) {
+            sections.add(generateSection(section, input));
+        }
+
+        StringBuilder report = new StringBuilder(REPORT_TITLE).append('\n');
+        List<String> unsent = new ArrayList<>();
+        unsent.add(REPORT_TITLE + "\n");
+        RuntimeException firstFailure = null;
+        boolean anySucceeded = false;
+
+        for (int i = 0; i < REPORT_SECTIONS.size(); i++) {
+            ReportSection section = REPORT_SECTIONS.get(i);
+            String body;
+            try {
+                body = sections.get(i).join();
+                anySucceeded = true;
+            } catch (CompletionException | CancellationException exception) {
+                RuntimeException cause = exception.getCause() instanceof RuntimeException runtimeCause
+                        ? runtimeCause
+                        : exception;
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+                log.warn("Failed to generate report section '{}'", section.heading(), cause);
+                body = SECTION_UNAVAILABLE;
+            }
+
+            String chunk = "\n## " + section.heading() + "\n" + body + "\n";
+            report.append(chunk);
+            unsent.add(chunk);
+            // Hold output back until a section succeeds so a total failure streams nothing.
+            if (anySucceeded) {
+                unsent.forEach(sectionListener);
+                unsent.clear();
+            }
         }
 
-        String url = ollamaBaseUrl + "/api/generate";
-        ResponseEntity<Map> response;
+        if (!anySucceeded) {
+            throw firstFailure;
+        }
+        return new FeedbackReport(report.toString().trim(), firstFailure == null ? cacheKey : null);
+    }
+
+    private CompletableFuture<String> generateSection(ReportSection section, PromptInput input) {
         try {
-            response = restTemplate.postForEntity(url, requestBody, Map.class);
-        } catch (RestClientException restClientException) {
-            throw new IllegalStateException("Failed to call Ollama generate endpoint", restClientException);
+            return generateAsync(SECTION_SYSTEM_PROMPT, sectionPrompt(section, input.jobDescription(), input.cvText()),
+                    sectionOptions)
+                    .thenApply(text -> sectionBody(section, text));
+        } catch (CapacityExceededException exception) {
+            throw exception;
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
         }
+    }
 
-        Map<String, Object> responseBody = response.getBody();
-        if (responseBody == null) {
+    private String sectionPrompt(ReportSection section, String jobDescription, String cvText) {
+        return "Job Description:\n" + jobDescription + "\n\nCV:\n" + cvText
+                + "\n\nSection: " + section.heading() + "\n" + section.instruction() + "\n\n" + section.heading() + ":";
+    }
+
+    private String sectionBody(ReportSection section, String generated) {
+        // Models often echo the heading despite the instructions.
+        String body = generated.strip();
+        while (body.startsWith("#") || body.regionMatches(true, 0, section.heading() + ":", 0, section.heading().length() + 1)) {
+            int newline = body.indexOf('\n');
+            body = newline < 0 ? "" : body.substring(newline + 1).strip();
+        }
+        if (body.isEmpty()) {
+            throw new IllegalStateException("Empty response for report section " + section.heading());
+        }
+        return body;
+    }
+
+    public String generate(String prompt, Map<String, Object> options) {
+        return OllamaClient.await(generateAsync(prompt, options));
+    }
+
+    public CompletableFuture<String> generateAsync(String prompt, Map<String, Object> options) {
+        return generateAsync(null, prompt, options);
+    }
+
+    public CompletableFuture<String> generateAsync(String system, String prompt, Map<String, Object> options) {
+        Map<String, Object> requestBody = generateRequestBody(system, prompt, options, false);
+
+        OllamaConcurrencyLimiter.Permit permit = ollamaConcurrencyLimiter.acquire(defaultModel);
+        try {
+            return ollamaEndpointPool.executeAsync(baseUrl -> ollamaClient.postAsync(baseUrl, GENERATE_PATH, requestBody))
+                    .whenComplete((response, error) -> permit.close())
+                    .thenApply(this::generatedText);
+        } catch (RuntimeException exception) {
+            permit.close();
+            throw exception;
+        }
+    }
+
+    public String generateStream(String prompt, Map<String, Object> options, Consumer<String> tokenListener) {
+        return generateStream(null, prompt, options, tokenListener);
+    }
+
+    public String generateStream(String system, String prompt, Map<String, Object> options, Consumer<String> tokenListener) {
+        Map<String, Object> requestBody = generateRequestBody(system, prompt, options, true);
+
+        StringBuilder generated = new StringBuilder();
+        try (OllamaConcurrencyLimiter.Permit ignored = ollamaConcurrencyLimiter.acquire(defaultModel)) {
+            ollamaEndpointPool.execute(baseUrl -> {
+                ollamaClient.postStream(baseUrl, GENERATE_PATH, requestBody, chunk -> {
+                    String token = chunk.path("response").asText("");
+                    if (!token.isEmpty()) {
+                        generated.append(token);
+                        tokenListener.accept(token);
+                    }
+                    if (chunk.path("done").asBoolean(false)) {
+                        pipelineMetrics.recordGeneration(defaultModel, chunk);
+                    }
+                });
+                return null;
+            }, generated::isEmpty);
+        }
+
+        if (generated.toString().isBlank()) {
             throw new IllegalStateException("Empty response from Ollama generate endpoint");
         }
+        return generated.toString().trim();
+    }
 
-        Object result = responseBody.get("response");
-        if (result != null) {
-            return result.toString().trim();
+    private String generatedText(JsonNode responseBody) {
+        JsonNode result = responseBody.get("response");
+        if (result != null && !result.isNull()) {
+            pipelineMetrics.recordGeneration(defaultModel, responseBody);
+            return result.asText().trim();
         }
 
-        Object error = responseBody.get("error");
-        if (error != null) {
-            throw new IllegalStateException("Ollama error: " + error);
+        JsonNode error = responseBody.get("error");
+        if (error != null && !error.isNull()) {
+            throw new IllegalStateException("Ollama error: " + error.asText());
         }
 
         throw new IllegalStateException("Unexpected response from Ollama: " + responseBody);
     }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUpEnabled) {
+            return;
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", defaultModel);
+        requestBody.put("keep_alive", keepAlive);
+        for (OllamaEndpoint endpoint : ollamaEndpointPool.endpoints()) {
+            ollamaClient.postAsync(endpoint.baseUrl(), GENERATE_PATH, requestBody, warmUpTimeout)
+                    .whenComplete((response, error) -> {
+                        if (error == null) {
+                            log.info("Preloaded Ollama model {} on {}", defaultModel, endpoint);
+                        } else {
+                            log.warn("Could not preload Ollama model {} on {}", defaultModel, endpoint, error);
+                        }
+                    });
+        }
+    }
+
+    private Map<String, Object> generateRequestBody(String system, String prompt, Map<String, Object> options, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", defaultModel);
+        if (system != null) {
+            requestBody.put("system", system);
+        }
+        requestBody.put("prompt", prompt);
+        requestBody.put("stream", stream);
+        requestBody.put("keep_alive", keepAlive);
+
+        if (options != null && !options.isEmpty()) {
+            requestBody.put("options", options);
+        }
+        return requestBody;
+    }
+
+    private record ReportSection(String heading, String instruction) {
+    }
+
+    private record PromptInput(String jobDescription, String cvText) {
+        static PromptInput of(CvTextNormalizer normalizer, String jobDescription, String cvText) {
+            return new PromptInput(normalizer.normalizeJobDescription(jobDescription), normalizer.normalizeCv(cvText));
+        }
+    }
 }
@@ -0,0 +1,211 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class PdfTextExtractor implements CvTextExtractor {
+    private static final Logger log = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    private static final String PDF_MEDIA_TYPE = "application/pdf";
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(10);
+
+    private final TaskExecutor pdfExtractionExecutor;
+    private final int maxPages;
+    private final int maxCharacters;
+    private final int pagesPerTask;
+    private final int maxParallelRanges;
+    private final Duration timeout;
+
+    public PdfTextExtractor(
+            @Qualifier("pdfExtractionExecutor") TaskExecutor pdfExtractionExecutor,
+            @Value("${pdf.extract.max-pages:20}") int maxPages,
+            @Value("${pdf.extract.max-characters:100000}") int maxCharacters,
+            @Value("${pdf.extract.pages-per-task:4}") int pagesPerTask,
+            @Value("${pdf.extract.threads:4}") int maxParallelRanges,
+            @Value("${pdf.extract.timeout:20s}") Duration timeout
+    ) {
+        this.pdfExtractionExecutor = pdfExtractionExecutor;
+        this.maxPages = Math.max(1, maxPages);
+        this.maxCharacters = Math.max(1, maxCharacters);
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.maxParallelRanges = Math.max(1, maxParallelRanges);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean supports(String mediaType) {
+        return PDF_MEDIA_TYPE.equals(mediaType);
+    }
+
+    // The first task opens the document, fans out any further page ranges and strips the first range from the
+    // document it already has open; the caller only waits, against a single deadline covering all of it. Every
+    // task checks the shared cancel flag between pages, since cancelling a CompletableFuture never interrupts.
+    @Override
+    public String extract(Path pdfFile) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CompletableFuture<FirstRange> first;
+        try {
+            first = CompletableFuture.supplyAsync(() -> readFirstRange(pdfFile, deadline, cancelled), pdfExtractionExecutor);
+        } catch (TaskRejectedException rejectedException) {
+            throw busy();
+        }
+
+        StringBuilder text = new StringBuilder();
+        try {
+            FirstRange firstRange = first.get(remaining(deadline), TimeUnit.NANOSECONDS);
+            text.append(firstRange.text());
+            for (CompletableFuture<String> range : firstRange.rest()) {
+                if (text.length() >= maxCharacters) {
+                    break;
+                }
+                text.append(range.get(remaining(deadline), TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException timeoutException) {
+            throw tooSlow();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new PdfProcessingException("Failed to read PDF content.");
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof CapacityExceededException capacityException) {
+                throw capacityException;
+            }
+            if (executionException.getCause() instanceof ExtractionTimeoutException) {
+                throw tooSlow();
+            }
+            throw new PdfProcessingException("Failed to read PDF content.");
+        } finally {
+            cancelled.set(true);
+        }
+
+        if (text.length() > maxCharacters) {
+            log.info("Truncating extracted CV text at {} characters", maxCharacters);
+            text.setLength(maxCharacters);
+        }
+        return text.toString();
+    }
+
+    private FirstRange readFirstRange(Path pdfFile, long deadline, AtomicBoolean cancelled) {
+        try (PDDocument document = load(pdfFile)) {
+            int pageCount = document.getNumberOfPages();
+            int pagesToRead = Math.min(pageCount, maxPages);
+            if (pageCount > maxPages) {
+                log.info("Only reading the first {} of {} pages from uploaded CV", maxPages, pageCount);
+            }
+
+            // Each further range opens the document again, so keep their number to what can run in parallel.
+            int rangeSize = Math.max(pagesPerTask, ceilDiv(pagesToRead, maxParallelRanges));
+            List<CompletableFuture<String>> rest = new ArrayList<>();
+            try {
+                for (int startPage = rangeSize + 1; startPage <= pagesToRead; startPage += rangeSize) {
+                    int rangeStart = startPage;
+                    int rangeEnd = Math.min(startPage + rangeSize - 1, pagesToRead);
+                    rest.add(CompletableFuture.supplyAsync(
+                            () -> stripRange(pdfFile, rangeStart, rangeEnd, deadline, cancelled), pdfExtractionExecutor));
+                }
+            } catch (TaskRejectedException rejectedException) {
+                cancelled.set(true);
+                throw busy();
+            }
+
+            String firstText = strip(document, 1, Math.min(rangeSize, pagesToRead), deadline, cancelled);
+            return new FirstRange(firstText, rest);
+        } catch (IOException e) {
+            cancelled.set(true);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String stripRange(Path pdfFile, int startPage, int endPage, long deadline, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            throw new ExtractionTimeoutException();
+        }
+        try (PDDocument document = load(pdfFile)) {
+            return strip(document, startPage, endPage, deadline, cancelled);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String strip(PDDocument document, int startPage, int endPage, long deadline, AtomicBoolean cancelled)
+            throws IOException {
+        PDFTextStripper stripper = new DeadlineTextStripper(deadline, cancelled);
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        stripper.setPageEnd(CvTextNormalizer.PAGE_BREAK);
+        return stripper.getText(document);
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    private static CapacityExceededException busy() {
+        return new CapacityExceededException(
+                "Too many CVs are being read right now. Please try again shortly.", BUSY_RETRY_AFTER);
+    }
+
+    private static PdfProcessingException tooSlow() {
+        return new PdfProcessingException("Reading the PDF took too long. Please upload a shorter document.");
+    }
+
+    private PDDocument load(Path pdfFile) throws IOException {
+        return PDDocument.load(pdfFile.toFile(), MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    private record FirstRange(String text, List<CompletableFuture<String>> rest) {
+    }
+
+    private static final class DeadlineTextStripper extends PDFTextStripper {
+        private final long deadline;
+        private final AtomicBoolean cancelled;
+
+        private DeadlineTextStripper(long deadline, AtomicBoolean cancelled) throws IOException {
+            this.deadline = deadline;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            if (cancelled.get() || System.nanoTime() - deadline > 0) {
+                throw new ExtractionTimeoutException();
+            }
+            super.startPage(page);
+        }
+    }
+
+    private static final class ExtractionTimeoutException extends RuntimeException {
+        private ExtractionTimeoutException() {
+            super("PDF text extraction deadline exceeded", null, false, false);
+        }
+    }
+}
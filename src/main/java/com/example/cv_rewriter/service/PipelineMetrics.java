@@ -0,0 +1,120 @@
+package com.example.cv_rewriter.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class PipelineMetrics {
+    public static final String EXTRACT = "extract";
+    public static final String GENERATE = "generate";
+    public static final String RENDER = "render";
+    public static final String PERSIST = "persist";
+
+    public enum Fallback {
+        ORIGINAL_FILE,
+        CAPACITY,
+        QUOTA
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T record(String stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } finally {
+            stageTimer(stage, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void record(String stage, Runnable action) {
+        record(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void recordFallback(Fallback fallback) {
+        Counter.builder("cv.pipeline.fallbacks")
+                .description("CV requests answered without a generated report")
+                .tag("path", fallback.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordCoalesced(String model) {
+        Counter.builder("ollama.generate.coalesced")
+                .description("Feedback reports served by joining an identical in-flight generation")
+                .tag("model", model)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordGeneration(String model, JsonNode finalResponse) {
+        if (finalResponse == null) {
+            return;
+        }
+
+        long promptTokens = finalResponse.path("prompt_eval_count").asLong(0);
+        long responseTokens = finalResponse.path("eval_count").asLong(0);
+        long evalNanos = finalResponse.path("eval_duration").asLong(0);
+        long loadNanos = finalResponse.path("load_duration").asLong(0);
+
+        if (promptTokens > 0) {
+            tokenSummary(model, "prompt").record(promptTokens);
+        }
+        if (responseTokens > 0) {
+            tokenSummary(model, "response").record(responseTokens);
+        }
+        if (responseTokens > 0 && evalNanos > 0) {
+            DistributionSummary.builder("ollama.generate.tokens_per_second")
+                    .description("Ollama response generation throughput")
+                    .baseUnit("tokens/s")
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .record(responseTokens * 1_000_000_000d / evalNanos);
+        }
+        if (loadNanos > 0) {
+            Timer.builder("ollama.generate.load_duration")
+                    .description("Time Ollama spent loading the model before generating")
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(loadNanos));
+        }
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return Timer.builder("cv.pipeline.stage")
+                .description("Latency of each CV processing stage")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokenSummary(String model, String type) {
+        return DistributionSummary.builder("ollama.generate.tokens")
+                .description("Prompt and response token counts reported by Ollama")
+                .baseUnit("tokens")
+                .tag("model", model)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
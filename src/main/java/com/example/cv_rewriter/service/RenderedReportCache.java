@@ -0,0 +1,221 @@
+package com.example.cv_rewriter.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+public class RenderedReportCache {
+    private static final Logger log = LoggerFactory.getLogger(RenderedReportCache.class);
+
+    private static final String PDF_SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".rendering";
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final FeedbackReportService feedbackReportService;
+    private final PipelineMetrics pipelineMetrics;
+    private final Path directory;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used file.
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RenderedReportCache(
+            FeedbackReportService feedbackReportService,
+            PipelineMetrics pipelineMetrics,
+            MeterRegistry meterRegistry,
+            @Value("${pdf.report-cache.directory:${java.io.tmpdir}/cv-rewriter-report-cache}") String directory,
+            @Value("${pdf.report-cache.max-size:256MB}") DataSize maxSize
+    ) throws IOException {
+        this.feedbackReportService = feedbackReportService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.maxBytes = maxSize.toBytes();
+
+        loadExistingEntries();
+
+        Gauge.builder("pdf.report_cache.size", this, RenderedReportCache::totalBytes)
+                .description("Bytes of rendered report PDFs on disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    // Renders the report ahead of its first download, so a report that cannot be rendered fails here instead.
+    public void prepare(String reportText) throws IOException {
+        feedbackReportService.validateReport(reportText);
+        String key = keyFor(reportText);
+        if (contains(key) && Files.exists(pathFor(key))) {
+            hits.increment();
+            return;
+        }
+
+        misses.increment();
+        Path rendered = render(key, reportText);
+        add(key, Files.size(rendered));
+    }
+
+    public void writeTo(String reportText, OutputStream out) throws IOException {
+        feedbackReportService.validateReport(reportText);
+        String key = keyFor(reportText);
+
+        if (contains(key)) {
+            try (InputStream cached = Files.newInputStream(pathFor(key))) {
+                hits.increment();
+                cached.transferTo(out);
+                return;
+            } catch (NoSuchFileException evicted) {
+                remove(key);
+            }
+        }
+
+        misses.increment();
+        Path rendered = render(key, reportText);
+        // Open before indexing so a concurrent eviction cannot delete it out from under us.
+        try (InputStream fresh = Files.newInputStream(rendered)) {
+            add(key, Files.size(rendered));
+            fresh.transferTo(out);
+        }
+    }
+
+    private Path render(String key, String reportText) throws IOException {
+        Path temp = directory.resolve(key + "-" + UUID.randomUUID() + TEMP_SUFFIX);
+        Path target = pathFor(key);
+        try {
+            try (OutputStream tempOut = Files.newOutputStream(temp)) {
+                pipelineMetrics.record(PipelineMetrics.RENDER,
+                        () -> feedbackReportService.renderFeedbackReportPdf(reportText, tempOut));
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    private synchronized boolean contains(String key) {
+        return entries.get(key) != null;
+    }
+
+    private void add(String key, long size) {
+        // Evicted files are deleted outside the lock so file I/O never holds up other requests.
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0L);
+
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                eldest.remove();
+                evicted.add(entry.getKey());
+            }
+        }
+        evicted.forEach(evictedKey -> deleteQuietly(pathFor(evictedKey)));
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void loadExistingEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                } else if (file.getFileName().toString().endsWith(PDF_SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        files.sort(Comparator.comparingLong(this::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            add(name.substring(0, name.length() - PDF_SUFFIX.length()), Files.size(file));
+        }
+        if (!files.isEmpty()) {
+            log.info("Loaded {} cached report PDF(s) ({} bytes) from {}", entries.size(), totalBytes, directory);
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ioException) {
+            return 0L;
+        }
+    }
+
+    private Path pathFor(String key) {
+        return directory.resolve(key + PDF_SUFFIX);
+    }
+
+    private String keyFor(String reportText) {
+        String material = FeedbackReportService.RENDERER_VERSION + FIELD_SEPARATOR + reportText;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ioException) {
+            log.warn("Failed to delete cached report {}", path, ioException);
+        }
+    }
+
+    private Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("pdf.report_cache.lookups")
+                .description("Rendered report PDF cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.cv_rewriter.service;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class ReportLineWrapper {
+    private static final char FIRST_PRINTABLE = 32;
+    private static final char LAST_PRINTABLE = 126;
+
+    private static final Map<PDFont, float[]> GLYPH_WIDTHS = new ConcurrentHashMap<>();
+
+    private final float[] charWidths;
+    private final float spaceWidth;
+    private final float maxWidth;
+
+    ReportLineWrapper(PDFont font, float fontSize, float maxWidth) {
+        float[] glyphWidths = GLYPH_WIDTHS.computeIfAbsent(font, ReportLineWrapper::loadGlyphWidths);
+        this.charWidths = new float[glyphWidths.length];
+        for (int i = 0; i < glyphWidths.length; i++) {
+            charWidths[i] = glyphWidths[i] / 1000 * fontSize;
+        }
+        this.spaceWidth = charWidths[' '];
+        this.maxWidth = maxWidth;
+    }
+
+    List<String> wrap(String line) {
+        if (line.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        PrefixParts prefixParts = detectPrefix(line.stripTrailing());
+        String firstLinePrefix = sanitize(prefixParts.firstLinePrefix());
+        String continuationPrefix = sanitize(prefixParts.continuationPrefix());
+        String body = sanitize(prefixParts.body());
+
+        List<String> wrapped = new ArrayList<>();
+        StringBuilder current = new StringBuilder(firstLinePrefix);
+        int prefixLength = firstLinePrefix.length();
+        float currentWidth = width(firstLinePrefix);
+
+        int index = 0;
+        int length = body.length();
+        while (index < length) {
+            while (index < length && body.charAt(index) == ' ') {
+                index++;
+            }
+            if (index == length) {
+                break;
+            }
+
+            int wordStart = index;
+            float wordWidth = 0;
+            while (index < length && body.charAt(index) != ' ') {
+                wordWidth += charWidths[body.charAt(index)];
+                index++;
+            }
+
+            boolean hasWords = current.length() > prefixLength;
+            float candidateWidth = currentWidth + (hasWords ? spaceWidth : 0) + wordWidth;
+
+            if (candidateWidth > maxWidth && hasWords) {
+                wrapped.add(current.toString());
+                current.setLength(0);
+                current.append(continuationPrefix).append(body, wordStart, index);
+                prefixLength = continuationPrefix.length();
+                currentWidth = width(continuationPrefix) + wordWidth;
+            } else {
+                if (hasWords) {
+                    current.append(' ');
+                }
+                current.append(body, wordStart, index);
+                currentWidth = candidateWidth;
+            }
+        }
+
+        if (current.length() > 0) {
+            wrapped.add(current.toString());
+        } else if (!firstLinePrefix.isEmpty()) {
+            wrapped.add(firstLinePrefix.stripTrailing());
+        }
+
+        return wrapped;
+    }
+
+    static String sanitize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '•') {
+                builder.append('-');
+            } else if (c >= FIRST_PRINTABLE && c <= LAST_PRINTABLE) {
+                builder.append(c);
+            } else if (Character.isWhitespace(c)) {
+                builder.append(' ');
+            }
+        }
+        return builder.toString();
+    }
+
+    private float width(String sanitized) {
+        float width = 0;
+        for (int i = 0; i < sanitized.length(); i++) {
+            width += charWidths[sanitized.charAt(i)];
+        }
+        return width;
+    }
+
+    private PrefixParts detectPrefix(String line) {
+        int firstContentIndex = 0;
+        while (firstContentIndex < line.length() && Character.isWhitespace(line.charAt(firstContentIndex))) {
+            firstContentIndex++;
+        }
+
+        String leadingWhitespace = line.substring(0, firstContentIndex);
+        String body = line.substring(firstContentIndex);
+
+        String bullet = "";
+        if (body.startsWith("- ") || body.startsWith("* ") || body.startsWith("• ")) {
+            bullet = body.substring(0, 2);
+            body = body.substring(2).stripLeading();
+        }
+
+        String firstLinePrefix = leadingWhitespace + bullet;
+        String continuationPrefix = leadingWhitespace;
+        if (!bullet.isEmpty()) {
+            continuationPrefix = leadingWhitespace + "  ";
+        }
+
+        return new PrefixParts(firstLinePrefix, continuationPrefix, body);
+    }
+
+    private static float[] loadGlyphWidths(PDFont font) {
+        float[] widths = new float[LAST_PRINTABLE + 1];
+        try {
+            for (char c = FIRST_PRINTABLE; c <= LAST_PRINTABLE; c++) {
+                widths[c] = font.getStringWidth(String.valueOf(c));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read glyph widths for font " + font.getName(), e);
+        }
+        return widths;
+    }
+
+    private record PrefixParts(String firstLinePrefix, String continuationPrefix, String body) { }
+}
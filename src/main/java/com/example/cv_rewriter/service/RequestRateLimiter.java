@@ -0,0 +1,194 @@
+package com.example.cv_rewriter.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Component
+public class RequestRateLimiter {
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> batchBuckets = new ConcurrentHashMap<>();
+    private final BucketLimits userLimits;
+    private final BucketLimits ipLimits;
+    private final BucketLimits batchLimits;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+    private final Counter userRejections;
+    private final Counter ipRejections;
+    private final Counter batchRejections;
+
+    @Autowired
+    public RequestRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${cv.rate-limit.user.burst:5}") int userBurst,
+            @Value("${cv.rate-limit.user.per-minute:10}") int userPerMinute,
+            @Value("${cv.rate-limit.ip.burst:10}") int ipBurst,
+            @Value("${cv.rate-limit.ip.per-minute:20}") int ipPerMinute,
+            @Value("${cv.rate-limit.batch.burst:2}") int batchBurst,
+            @Value("${cv.rate-limit.batch.per-minute:2}") int batchPerMinute,
+            @Value("${cv.rate-limit.idle-eviction:10m}") Duration idleEviction
+    ) {
+        this(meterRegistry, userBurst, userPerMinute, ipBurst, ipPerMinute, batchBurst, batchPerMinute, idleEviction,
+                System::nanoTime);
+    }
+
+    RequestRateLimiter(
+            MeterRegistry meterRegistry,
+            int userBurst,
+            int userPerMinute,
+            int ipBurst,
+            int ipPerMinute,
+            int batchBurst,
+            int batchPerMinute,
+            Duration idleEviction,
+            LongSupplier nanoClock
+    ) {
+        this.userLimits = BucketLimits.of(userBurst, userPerMinute);
+        this.ipLimits = BucketLimits.of(ipBurst, ipPerMinute);
+        this.batchLimits = BucketLimits.of(batchBurst, batchPerMinute);
+        this.idleNanos = idleEviction.toNanos();
+        this.nanoClock = nanoClock;
+
+        Gauge.builder("cv.rate_limit.buckets", userBuckets, Map::size)
+                .description("Rate limit buckets currently tracked")
+                .tag("scope", "user")
+                .register(meterRegistry);
+        Gauge.builder("cv.rate_limit.buckets", ipBuckets, Map::size)
+                .description("Rate limit buckets currently tracked")
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        Gauge.builder("cv.rate_limit.buckets", batchBuckets, Map::size)
+                .description("Rate limit buckets currently tracked")
+                .tag("scope", "batch")
+                .register(meterRegistry);
+        this.userRejections = rejectionCounter(meterRegistry, "user");
+        this.ipRejections = rejectionCounter(meterRegistry, "ip");
+        this.batchRejections = rejectionCounter(meterRegistry, "batch");
+    }
+
+    public Optional<Duration> tryAcquire(String user, String ip) {
+        return tryAcquire(user, ip, false);
+    }
+
+    // Returns how long to wait when the request is over any limit. The IP bucket is checked first so a
+    // flood from one address does not also drain the user's allowance. A batch request fans out into many
+    // generations, so it must also fit a much smaller per-user (or, when signed out, per-address) batch bucket.
+    // Tokens taken from earlier buckets are handed back when a later one rejects, so a rejected request costs nothing.
+    public Optional<Duration> tryAcquire(String user, String ip, boolean batch) {
+        long now = nanoClock.getAsLong();
+
+        TokenBucket ipBucket = null;
+        if (ip != null) {
+            ipBucket = ipBuckets.computeIfAbsent(ip, key -> new TokenBucket(now));
+            long waitNanos = ipBucket.tryConsume(now, ipLimits);
+            if (waitNanos > 0) {
+                ipRejections.increment();
+                return Optional.of(Duration.ofNanos(waitNanos));
+            }
+        }
+        TokenBucket batchBucket = null;
+        String batchKey = user != null ? user : ip;
+        if (batch && batchKey != null) {
+            batchBucket = batchBuckets.computeIfAbsent(batchKey, key -> new TokenBucket(now));
+            long waitNanos = batchBucket.tryConsume(now, batchLimits);
+            if (waitNanos > 0) {
+                batchRejections.increment();
+                refund(ipBucket, ipLimits);
+                return Optional.of(Duration.ofNanos(waitNanos));
+            }
+        }
+        if (user != null) {
+            long waitNanos = userBuckets.computeIfAbsent(user, key -> new TokenBucket(now)).tryConsume(now, userLimits);
+            if (waitNanos > 0) {
+                userRejections.increment();
+                refund(batchBucket, batchLimits);
+                refund(ipBucket, ipLimits);
+                return Optional.of(Duration.ofNanos(waitNanos));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Retry-After is in whole seconds; round up so a client that honours it is not rejected again.
+    public static long retryAfterSeconds(Duration wait) {
+        return Math.max(1, (wait.toNanos() + 999_999_999L) / 1_000_000_000L);
+    }
+
+    // A bucket that has been full for a while carries no state a fresh bucket would not, so dropping it
+    // (even while a request races with the removal) never changes a decision.
+    @Scheduled(fixedDelayString = "${cv.rate-limit.eviction-interval:PT5M}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        userBuckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+        ipBuckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+        batchBuckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    private static void refund(TokenBucket bucket, BucketLimits limits) {
+        if (bucket != null) {
+            bucket.refund(limits);
+        }
+    }
+
+    private Counter rejectionCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("cv.rate_limit.rejected")
+                .description("Requests rejected by the upload rate limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private record BucketLimits(long nanosPerToken, long burstNanos) {
+        static BucketLimits of(int burst, int perMinute) {
+            long nanosPerToken = Duration.ofMinutes(1).toNanos() / Math.max(1, perMinute);
+            return new BucketLimits(nanosPerToken, nanosPerToken * Math.max(1, burst));
+        }
+    }
+
+    // Lock-free token bucket kept as a single timestamp: the instant the bucket would be full again.
+    // Each request pushes it one token's worth into the future; a request that would push it further
+    // than the burst allows is rejected.
+    private static final class TokenBucket {
+        private final AtomicLong fullAt;
+
+        private TokenBucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        long tryConsume(long now, BucketLimits limits) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + limits.nanosPerToken();
+                long excess = next - now - limits.burstNanos();
+                if (excess > 0) {
+                    return excess;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        // Undoes one tryConsume; moving the full instant back by a token is the same whether or not others
+        // consumed in between.
+        void refund(BucketLimits limits) {
+            fullAt.addAndGet(-limits.nanosPerToken());
+        }
+
+        boolean isIdle(long now, long idleNanos) {
+            return now - fullAt.get() > idleNanos;
+        }
+    }
+}
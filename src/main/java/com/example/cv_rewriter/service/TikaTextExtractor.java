@@ -0,0 +1,274 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Component
+public class TikaTextExtractor implements CvTextExtractor {
+    private static final Logger log = LoggerFactory.getLogger(TikaTextExtractor.class);
+
+    private static final Set<String> SUPPORTED_MEDIA_TYPES = Set.of(
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/msword",
+            "application/vnd.oasis.opendocument.text",
+            "application/rtf",
+            "text/html",
+            "application/xhtml+xml"
+    );
+
+    private final TaskExecutor extractionExecutor;
+    private final BlockingQueue<Parser> parsers;
+    private final int maxCharacters;
+    private final Duration borrowTimeout;
+    private final Duration timeout;
+
+    public TikaTextExtractor(
+            @Qualifier("pdfExtractionExecutor") TaskExecutor extractionExecutor,
+            @Value("${cv.extract.tika.pool-size:4}") int poolSize,
+            @Value("${cv.extract.tika.max-characters:100000}") int maxCharacters,
+            @Value("${cv.extract.tika.borrow-timeout:10s}") Duration borrowTimeout,
+            @Value("${cv.extract.tika.timeout:20s}") Duration timeout
+    ) {
+        this.extractionExecutor = extractionExecutor;
+        int size = Math.max(1, poolSize);
+        this.parsers = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            parsers.add(new AutoDetectParser());
+        }
+        this.maxCharacters = Math.max(1, maxCharacters);
+        this.borrowTimeout = borrowTimeout;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean supports(String mediaType) {
+        return SUPPORTED_MEDIA_TYPES.contains(mediaType);
+    }
+
+    // The parse runs on the extraction executor while the caller waits against the deadline. A parser cannot be
+    // interrupted, so the content handler aborts it at its next SAX event once the caller has given up, and a
+    // parser that timed out is replaced in the pool rather than reused.
+    @Override
+    public String extract(Path file) {
+        Parser parser = borrow();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CompletableFuture<String> parsed;
+        try {
+            parsed = CompletableFuture.supplyAsync(() -> parseFile(parser, file, deadline, cancelled), extractionExecutor);
+        } catch (TaskRejectedException rejectedException) {
+            parsers.add(parser);
+            throw busy(borrowTimeout);
+        }
+
+        try {
+            return parsed.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException timeoutException) {
+            throw tooSlow();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new PdfProcessingException("Failed to read document content.");
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof ExtractionTimeoutException) {
+                throw tooSlow();
+            }
+            if (executionException.getCause() instanceof PdfProcessingException processingException) {
+                throw processingException;
+            }
+            throw new PdfProcessingException("Failed to read document content.");
+        } finally {
+            cancelled.set(true);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.nanoTime();
+        List<byte[]> samples = warmUpSamples();
+        List<Parser> borrowed = new ArrayList<>();
+        parsers.drainTo(borrowed);
+        try {
+            for (Parser parser : borrowed) {
+                for (byte[] sample : samples) {
+                    try (InputStream stream = TikaInputStream.get(sample)) {
+                        parse(parser, stream, System.nanoTime() + timeout.toNanos(), new AtomicBoolean());
+                    } catch (Exception exception) {
+                        log.debug("Tika warm-up sample failed to parse", exception);
+                    }
+                }
+            }
+        } finally {
+            parsers.addAll(borrowed);
+        }
+        log.info("Warmed {} Tika parser(s) in {} ms", borrowed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private String parseFile(Parser parser, Path file, long deadline, AtomicBoolean cancelled) {
+        boolean abandoned = false;
+        try (InputStream stream = TikaInputStream.get(file)) {
+            return parse(parser, stream, deadline, cancelled);
+        } catch (ExtractionTimeoutException timeoutException) {
+            abandoned = true;
+            throw timeoutException;
+        } catch (IOException e) {
+            throw new PdfProcessingException("Failed to read document content.");
+        } finally {
+            parsers.add(abandoned ? new AutoDetectParser() : parser);
+        }
+    }
+
+    private String parse(Parser parser, InputStream stream, long deadline, AtomicBoolean cancelled) throws IOException {
+        WriteOutContentHandler writeOut = new WriteOutContentHandler(maxCharacters);
+        DeadlineContentHandler handler = new DeadlineContentHandler(new BodyContentHandler(writeOut), deadline, cancelled);
+        try {
+            parser.parse(stream, handler, new Metadata(), new ParseContext());
+        } catch (SAXException | TikaException e) {
+            if (handler.exceeded) {
+                throw new ExtractionTimeoutException();
+            }
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new PdfProcessingException("Failed to read document content.");
+            }
+            log.info("Truncating extracted CV text at {} characters", maxCharacters);
+        }
+        return writeOut.toString();
+    }
+
+    private Parser borrow() {
+        try {
+            Parser parser = parsers.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (parser != null) {
+                return parser;
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        throw busy(borrowTimeout);
+    }
+
+    private static CapacityExceededException busy(Duration retryAfter) {
+        return new CapacityExceededException(
+                "Too many CVs are being read right now. Please try again shortly.", retryAfter);
+    }
+
+    private static PdfProcessingException tooSlow() {
+        return new PdfProcessingException("Reading the document took too long. Please upload a shorter document.");
+    }
+
+    private List<byte[]> warmUpSamples() {
+        List<byte[]> samples = new ArrayList<>();
+        samples.add("<html><body><p>Warm up</p></body></html>".getBytes(StandardCharsets.UTF_8));
+        samples.add("{\\rtf1\\ansi Warm up\\par}".getBytes(StandardCharsets.US_ASCII));
+        try {
+            samples.add(minimalDocx());
+        } catch (IOException ioException) {
+            log.debug("Could not build DOCX warm-up sample", ioException);
+        }
+        return samples;
+    }
+
+    private byte[] minimalDocx() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            addZipEntry(zip, "[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/word/document.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml\"/>"
+                    + "</Types>");
+            addZipEntry(zip, "_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"word/document.xml\"/>"
+                    + "</Relationships>");
+            addZipEntry(zip, "word/document.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                    + "<w:body><w:p><w:r><w:t>Warm up</w:t></w:r></w:p></w:body></w:document>");
+        }
+        return bytes.toByteArray();
+    }
+
+    private void addZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static final class DeadlineContentHandler extends ContentHandlerDecorator {
+        private final long deadline;
+        private final AtomicBoolean cancelled;
+        private boolean exceeded;
+
+        private DeadlineContentHandler(ContentHandler handler, long deadline, AtomicBoolean cancelled) {
+            super(handler);
+            this.deadline = deadline;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String name, Attributes attributes) throws SAXException {
+            checkDeadline();
+            super.startElement(uri, localName, name, attributes);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            checkDeadline();
+            super.characters(ch, start, length);
+        }
+
+        private void checkDeadline() throws SAXException {
+            if (cancelled.get() || System.nanoTime() - deadline > 0) {
+                exceeded = true;
+                throw new SAXException("Document text extraction deadline exceeded");
+            }
+        }
+    }
+
+    private static final class ExtractionTimeoutException extends RuntimeException {
+        private ExtractionTimeoutException() {
+            super("Document text extraction deadline exceeded", null, false, false);
+        }
+    }
+}
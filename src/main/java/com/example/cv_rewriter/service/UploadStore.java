@@ -0,0 +1,118 @@
+package com.example.cv_rewriter.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class UploadStore {
+    private static final Logger log = LoggerFactory.getLogger(UploadStore.class);
+
+    private final Map<String, StoredUpload> uploads = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final Duration defaultTtl;
+
+    public UploadStore(
+            @Value("${cv.uploads.directory:${java.io.tmpdir}/cv-rewriter-uploads}") String directory,
+            @Value("${cv.uploads.ttl:30m}") Duration defaultTtl
+    ) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.defaultTtl = defaultTtl;
+    }
+
+    public StoredUpload store(MultipartFile file) throws IOException {
+        return store(file, defaultTtl);
+    }
+
+    public StoredUpload store(MultipartFile file, Duration ttl) throws IOException {
+        String handle = UUID.randomUUID().toString();
+        Path path = directory.resolve(handle + ".upload");
+        try (InputStream is = file.getInputStream()) {
+            Files.copy(is, path);
+        } catch (IOException ioException) {
+            Files.deleteIfExists(path);
+            throw ioException;
+        }
+
+        StoredUpload upload = new StoredUpload(handle, path, file.getOriginalFilename(), file.getContentType(),
+                Files.size(path), Instant.now().plus(ttl));
+        uploads.put(handle, upload);
+        return upload;
+    }
+
+    public Optional<StoredUpload> find(String handle) {
+        if (handle == null) {
+            return Optional.empty();
+        }
+        StoredUpload upload = uploads.get(handle);
+        if (upload == null || upload.isExpired(Instant.now()) || !Files.isReadable(upload.path())) {
+            return Optional.empty();
+        }
+        return Optional.of(upload);
+    }
+
+    public void remove(String handle) {
+        if (handle == null) {
+            return;
+        }
+        StoredUpload upload = uploads.remove(handle);
+        if (upload != null) {
+            deleteQuietly(upload.path());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cv.uploads.cleanup-interval:PT5M}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        uploads.values().removeIf(upload -> {
+            if (upload.isExpired(now)) {
+                deleteQuietly(upload.path());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    void clear() {
+        uploads.values().forEach(upload -> deleteQuietly(upload.path()));
+        uploads.clear();
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ioException) {
+            log.warn("Failed to delete stored upload {}", path, ioException);
+        }
+    }
+
+    public record StoredUpload(
+            String handle,
+            Path path,
+            String filename,
+            String contentType,
+            long size,
+            Instant expiresAt
+    ) {
+        boolean isExpired(Instant now) {
+            return now.isAfter(expiresAt);
+        }
+    }
+}
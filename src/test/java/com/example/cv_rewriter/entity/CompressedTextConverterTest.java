@@ -0,0 +1,62 @@
+package com.example.cv_rewriter.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void roundTripsTextIncludingNonAscii() {
+        String text = "Feedback for Zoë: strong Kubernetes experience — quantify the impact. 数据 ✓\n\n- Keep bullets";
+
+        assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text))).isEqualTo(text);
+    }
+
+    @Test
+    void roundTripsEmptyAndNullText() {
+        assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(""))).isEmpty();
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void roundTripsTextLargerThanTheBuffer() {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(3);
+        while (text.length() < 200_000) {
+            text.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(8) == 0) {
+                text.append(' ');
+            }
+        }
+
+        assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(text.toString())))
+                .isEqualTo(text.toString());
+    }
+
+    @Test
+    void compressesRepetitiveReports() {
+        String report = "Strengths: clear impact statements and relevant experience.\n".repeat(200);
+
+        assertThat(converter.convertToDatabaseColumn(report).length)
+                .isLessThan(report.getBytes(StandardCharsets.UTF_8).length / 10);
+    }
+
+    @Test
+    void rejectsTruncatedOrCorruptColumns() {
+        byte[] compressed = converter.convertToDatabaseColumn("A report long enough to be cut short. ".repeat(20));
+
+        assertThatThrownBy(() -> converter.convertToEntityAttribute(Arrays.copyOf(compressed, compressed.length / 2)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> converter.convertToEntityAttribute("not deflated".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.repository.CvProcessRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CvProcessRecordWriterTest {
+
+    private final CvProcessRecordRepository repository = mock(CvProcessRecordRepository.class);
+    private final JobDescriptionStore jobDescriptionStore = mock(JobDescriptionStore.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<List<CvProcessRecord>> savedBatches = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch blockerSaving = new CountDownLatch(1);
+    private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+    private final CvProcessRecord blocker = record("blocker@example.com");
+    private final CvProcessRecord rejected = record("rejected@example.com");
+
+    private SimpleMeterRegistry meterRegistry;
+    private CvProcessRecordWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<CvProcessRecord> argument = invocation.getArgument(0);
+            List<CvProcessRecord> records = List.copyOf(argument);
+            if (records.contains(blocker)) {
+                blockerSaving.countDown();
+                releaseBlocker.await(5, TimeUnit.SECONDS);
+            }
+            if (records.contains(rejected)) {
+                throw new DataIntegrityViolationException("rejected");
+            }
+            savedBatches.add(records);
+            return records;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseBlocker.countDown();
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void writesDirectlyWhileNotRunning() {
+        writer = writer(10, "block", 50);
+        CvProcessRecord record = record("user@example.com");
+
+        writer.enqueue(record);
+
+        assertThat(savedBatches).containsExactly(List.of(record));
+        verify(jobDescriptionStore).attach(List.of(record));
+        assertThat(records("written")).isEqualTo(1);
+    }
+
+    @Test
+    void batchesQueuedRecordsAndFlushesThemOnStop() throws InterruptedException {
+        writer = writer(10, "block", 3);
+        writer.start();
+        holdWriter();
+
+        List<CvProcessRecord> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CvProcessRecord record = record("user" + i + "@example.com");
+            queued.add(record);
+            writer.enqueue(record);
+        }
+        releaseBlocker.countDown();
+        writer.stop();
+
+        assertThat(savedBatches.subList(1, savedBatches.size()))
+                .containsExactly(queued.subList(0, 3), queued.subList(3, 5));
+        assertThat(records("written")).isEqualTo(6);
+    }
+
+    @Test
+    void dropsRecordsThatDoNotFitWhenTheDropPolicyIsSet() throws InterruptedException {
+        writer = writer(1, "drop", 50);
+        writer.start();
+        holdWriter();
+
+        CvProcessRecord queued = record("queued@example.com");
+        writer.enqueue(queued);
+        writer.enqueue(record("dropped@example.com"));
+        releaseBlocker.countDown();
+        writer.stop();
+
+        assertThat(savedBatches).containsExactly(List.of(blocker), List.of(queued));
+        assertThat(records("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void dropsRecordsAfterTheBlockTimeoutWhenTheBlockPolicyIsSet() throws InterruptedException {
+        writer = writer(1, "block", 50);
+        writer.start();
+        holdWriter();
+
+        writer.enqueue(record("queued@example.com"));
+        long start = System.nanoTime();
+        writer.enqueue(record("dropped@example.com"));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(40));
+        assertThat(records("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    void writesRecordsOneAtATimeWhenTheirBatchFails() throws InterruptedException {
+        writer = writer(10, "block", 50);
+        writer.start();
+        holdWriter();
+
+        CvProcessRecord first = record("first@example.com");
+        CvProcessRecord last = record("last@example.com");
+        writer.enqueue(first);
+        writer.enqueue(rejected);
+        writer.enqueue(last);
+        releaseBlocker.countDown();
+        writer.stop();
+
+        assertThat(savedBatches).containsExactly(List.of(blocker), List.of(first), List.of(last));
+        assertThat(records("written")).isEqualTo(3);
+        assertThat(records("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void retriesTransientFailuresWithoutTheRolledBackIdsOrJobDescriptions() {
+        writer = writer(10, "block", 50);
+        CvProcessRecord record = record("user@example.com");
+        doAnswer(invocation -> {
+            record.setId(42L);
+            throw new TransientDataAccessResourceException("connection reset");
+        }).doAnswer(invocation -> {
+            assertThat(record.getId()).isNull();
+            assertThat(record.getStoredJobDescription()).isNull();
+            savedBatches.add(List.of(record));
+            return List.of(record);
+        }).when(repository).saveAll(anyList());
+
+        writer.enqueue(record);
+
+        verify(jobDescriptionStore, times(2)).attach(List.of(record));
+        verify(transactionManager).rollback(any());
+        assertThat(savedBatches).containsExactly(List.of(record));
+        assertThat(records("written")).isEqualTo(1);
+    }
+
+    // Parks the writer thread inside a save so the test controls what is queued behind it.
+    private void holdWriter() throws InterruptedException {
+        writer.enqueue(blocker);
+        assertThat(blockerSaving.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private CvProcessRecordWriter writer(int queueCapacity, String overflowPolicy, int batchSize) {
+        return new CvProcessRecordWriter(repository, jobDescriptionStore, transactionManager, meterRegistry,
+                queueCapacity, overflowPolicy, Duration.ofMillis(50), batchSize, Duration.ofMillis(20),
+                Duration.ofSeconds(5), 3, Duration.ofMillis(1));
+    }
+
+    private double records(String result) {
+        return meterRegistry.get("cv.history.write_behind.records").tag("result", result).counter().count();
+    }
+
+    private static CvProcessRecord record(String userEmail) {
+        CvProcessRecord record = new CvProcessRecord();
+        record.setUserEmail(userEmail);
+        record.setJobDescription("Java developer");
+        record.setFeedbackReport("Report for " + userEmail);
+        return record;
+    }
+}
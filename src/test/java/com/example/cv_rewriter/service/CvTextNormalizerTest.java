@@ -0,0 +1,102 @@
+package com.example.cv_rewriter.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvTextNormalizerTest {
+
+    private final CvTextNormalizer normalizer = new CvTextNormalizer(2500, 800, List.of());
+
+    @Test
+    void rejoinsWordsSplitAcrossLinesButKeepsCompoundHyphens() {
+        String text = "Drove the develop-\nment of cloud-\nnative services with test-\n  driven design and self-\nmotivated peers.";
+
+        assertThat(normalizer.normalizeCv(text))
+                .isEqualTo("Drove the development of cloud-native services with test-driven design and self-motivated peers.");
+    }
+
+    @Test
+    void keepsHyphensAroundConfiguredCompoundWords() {
+        String text = "Built event-\nsourcing pipelines.";
+
+        assertThat(normalizer.normalizeCv(text)).isEqualTo("Built eventsourcing pipelines.");
+        assertThat(new CvTextNormalizer(2500, 800, List.of(" Event ")).normalizeCv(text))
+                .isEqualTo("Built event-sourcing pipelines.");
+    }
+
+    @Test
+    void collapsesWhitespaceAndBlankLines() {
+        assertThat(normalizer.normalizeCv("Skills:\tJava  Go\r\n\n\n\nEducation  "))
+                .isEqualTo("Skills: Java Go\n\nEducation");
+    }
+
+    @Test
+    void removesRunningHeadersAndPageNumbersAtPageEdges() {
+        String text = "Jane Doe Curriculum Vitae\nExperience\nBuilt payment services.\nPage 1 of 3\n"
+                + CvTextNormalizer.PAGE_BREAK
+                + "Jane Doe Curriculum Vitae\nLed a team of five.\n2\n"
+                + CvTextNormalizer.PAGE_BREAK
+                + "Jane Doe Curriculum Vitae\nSkills\nJava, Kubernetes\nPage 3 of 3";
+
+        assertThat(normalizer.normalizeCv(text))
+                .isEqualTo("Experience\nBuilt payment services.\n\nLed a team of five.\n\nSkills\nJava, Kubernetes");
+    }
+
+    @Test
+    void keepsLinesThatRepeatOnTooFewPagesOrALoneNumberOnASinglePage() {
+        String text = "Summary\nAcme Corp\n" + CvTextNormalizer.PAGE_BREAK + "Acme Corp\nShipped things\n"
+                + CvTextNormalizer.PAGE_BREAK + "Skills\nJava";
+
+        assertThat(normalizer.normalizeCv(text)).isEqualTo("Summary\nAcme Corp\n\nAcme Corp\nShipped things\n\nSkills\nJava");
+        assertThat(normalizer.normalizeCv("Summary\nYears in role\n7")).isEqualTo("Summary\nYears in role\n7");
+    }
+
+    @Test
+    void dropsLowPrioritySectionsFirstAndKeepsTheOriginalOrder() {
+        String header = "Jane Doe\njane@example.com";
+        String hobbies = "Hobbies\nClimbing and chess on weekends with friends from the local club every week.";
+        String experience = "Experience\nLed the payments team and cut checkout latency by forty percent.";
+        String skills = "Skills\nJava, Go, Kubernetes";
+        CvTextNormalizer smallBudget = new CvTextNormalizer(40, 800, List.of());
+
+        String trimmed = smallBudget.normalizeCv(String.join("\n\n", header, hobbies, experience, skills));
+
+        assertThat(trimmed).isEqualTo(String.join("\n\n", header, experience, skills));
+        assertThat(CvTextNormalizer.estimateTokens(trimmed)).isLessThanOrEqualTo(40);
+    }
+
+    @Test
+    void cutsTheSectionThatNoLongerFitsAtALineBoundary() {
+        StringBuilder experience = new StringBuilder("Experience");
+        for (int i = 1; i <= 10; i++) {
+            experience.append("\nDelivered project number ").append(i).append(" for the payments platform.");
+        }
+        CvTextNormalizer smallBudget = new CvTextNormalizer(60, 800, List.of());
+
+        String trimmed = smallBudget.normalizeCv(experience + "\n\nSkills\nJava, Go, Kubernetes");
+
+        assertThat(trimmed).startsWith("Experience\nDelivered project number 1 ").doesNotContain("Skills");
+        assertThat(trimmed.length()).isLessThanOrEqualTo(60 * 4);
+        assertThat(experience.toString()).startsWith(trimmed + "\n");
+    }
+
+    @Test
+    void truncatesJobDescriptionsToTheirBudgetWithoutRemovingFurniture() {
+        CvTextNormalizer smallBudget = new CvTextNormalizer(2500, 10, List.of());
+        String jobDescription = "Senior Java developer wanted for payments platform work in Berlin";
+
+        String truncated = smallBudget.normalizeJobDescription(jobDescription);
+
+        assertThat(truncated).isEqualTo("Senior Java developer wanted for");
+        assertThat(normalizer.normalizeJobDescription("Page 1 of 2\nJava developer")).isEqualTo("Page 1 of 2\nJava developer");
+    }
+
+    @Test
+    void normalizesMissingTextToEmpty() {
+        assertThat(normalizer.normalizeCv(null)).isEmpty();
+        assertThat(normalizer.normalizeJobDescription("  \n ")).isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.cv_rewriter.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FairShareQueueTest {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(10);
+
+    @Test
+    void servesWaitingUsersInProportionToTheirWeights() throws Exception {
+        FairShareQueue queue = new FairShareQueue(1);
+        assertThat(queue.acquire("holder", "standard", 1, LONG_WAIT)).isTrue();
+
+        List<String> grants = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> waiters = new ArrayList<>();
+        // Heavy queues up first, so the rotation starts with it.
+        waiters.addAll(startWaiters(queue, "heavy", 3, 6, grants));
+        awaitCondition(() -> queue.waiting() == 6);
+        waiters.addAll(startWaiters(queue, "light", 1, 6, grants));
+        awaitCondition(() -> queue.waiting() == 12);
+        assertThat(queue.waitingUsers()).isEqualTo(2);
+
+        queue.release();
+        for (Thread waiter : waiters) {
+            waiter.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertThat(grants).containsExactly(
+                "heavy", "heavy", "heavy", "light",
+                "heavy", "heavy", "heavy", "light",
+                "light", "light", "light", "light");
+        assertIdle(queue);
+    }
+
+    @Test
+    void timedOutWaiterLeavesTheQueueAndThePermitCount() throws Exception {
+        FairShareQueue queue = new FairShareQueue(1);
+        assertThat(queue.acquire("holder", "standard", 1, LONG_WAIT)).isTrue();
+
+        assertThat(queue.acquire("waiter", "standard", 1, Duration.ofMillis(20))).isFalse();
+
+        assertThat(queue.waiting()).isZero();
+        assertThat(queue.waitingUsers()).isZero();
+        assertThat(queue.inFlight()).isEqualTo(1);
+        queue.release();
+        assertIdle(queue);
+    }
+
+    @Test
+    void waiterTimingOutAsAPermitIsGrantedNeitherLosesNorDuplicatesIt() throws Exception {
+        FairShareQueue queue = new FairShareQueue(1);
+        assertThat(queue.acquire("holder", "standard", 1, LONG_WAIT)).isTrue();
+
+        for (int i = 0; i < 300; i++) {
+            long waitNanos = ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(2));
+            CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return queue.acquire("waiter", "standard", 1, Duration.ofNanos(waitNanos));
+                } catch (InterruptedException interruptedException) {
+                    throw new IllegalStateException(interruptedException);
+                }
+            });
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(2)));
+            queue.release();
+
+            boolean granted = waiter.get(10, TimeUnit.SECONDS);
+            assertThat(queue.waiting()).isZero();
+            if (granted) {
+                // The waiter owns the permit now; hand it back to the holder's role.
+                assertThat(queue.inFlight()).isEqualTo(1);
+            } else {
+                assertThat(queue.inFlight()).isZero();
+                assertThat(queue.acquire("holder", "standard", 1, Duration.ZERO)).isTrue();
+            }
+        }
+
+        queue.release();
+        assertIdle(queue);
+    }
+
+    @Test
+    void interruptedWaiterLeavesTheQueueAndThePermitCount() throws Exception {
+        FairShareQueue queue = new FairShareQueue(1);
+        assertThat(queue.acquire("holder", "standard", 1, LONG_WAIT)).isTrue();
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                queue.acquire("waiter", "standard", 1, LONG_WAIT);
+                failure.complete(null);
+            } catch (Throwable throwable) {
+                failure.complete(throwable);
+            }
+        });
+        waiter.start();
+        awaitCondition(() -> queue.waiting() == 1);
+
+        waiter.interrupt();
+
+        assertThat(failure.get(10, TimeUnit.SECONDS)).isInstanceOf(InterruptedException.class);
+        assertThat(queue.waiting()).isZero();
+        assertThat(queue.waitingUsers()).isZero();
+        queue.release();
+        assertIdle(queue);
+    }
+
+    @Test
+    void neverHandsOutMorePermitsThanItHas() throws Exception {
+        FairShareQueue queue = new FairShareQueue(2);
+        assertThat(queue.acquire("a", "standard", 1, LONG_WAIT)).isTrue();
+        assertThat(queue.acquire("b", "standard", 1, LONG_WAIT)).isTrue();
+
+        assertThat(queue.acquire("c", "standard", 1, Duration.ZERO)).isFalse();
+        assertThatThrownBy(() -> {
+            Thread.currentThread().interrupt();
+            queue.acquire("c", "standard", 1, LONG_WAIT);
+        }).isInstanceOf(InterruptedException.class);
+
+        queue.release();
+        queue.release();
+        assertIdle(queue);
+    }
+
+    private List<Thread> startWaiters(FairShareQueue queue, String user, int weight, int count, List<String> grants) {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    if (queue.acquire(user, user, weight, LONG_WAIT)) {
+                        grants.add(user);
+                        queue.release();
+                    }
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    private void assertIdle(FairShareQueue queue) throws InterruptedException {
+        assertThat(queue.inFlight()).isZero();
+        assertThat(queue.waiting()).isZero();
+        assertThat(queue.waitingUsers()).isZero();
+        // Every permit is available again, without waiting.
+        assertThat(queue.acquire("check", "standard", 1, Duration.ZERO)).isTrue();
+        queue.release();
+    }
+
+    static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition met within 10s").isNegative();
+            Thread.sleep(5);
+        }
+    }
+}
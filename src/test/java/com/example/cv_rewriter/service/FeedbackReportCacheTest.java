@@ -0,0 +1,129 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.repository.CvProcessRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FeedbackReportCacheTest {
+
+    private static final Map<String, Object> OPTIONS = Map.of("temperature", 0.4, "top_p", 0.9);
+
+    private final CvProcessRecordRepository repository = mock(CvProcessRecordRepository.class);
+    private SimpleMeterRegistry meterRegistry;
+    private FeedbackReportCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(true);
+    }
+
+    @Test
+    void keyIgnoresWhitespaceDifferencesAndOptionOrder() {
+        String key = cache.keyFor("model", "prompt", OPTIONS, "Java developer", "Five years of Java");
+
+        assertThat(cache.keyFor("model", "prompt", Map.of("top_p", 0.9, "temperature", 0.4),
+                "  Java\n developer ", "Five years\tof  Java"))
+                .isEqualTo(key)
+                .hasSize(64);
+    }
+
+    @Test
+    void keyChangesWithModelPromptOptionsAndInputs() {
+        String key = cache.keyFor("model", "prompt", OPTIONS, "Java developer", "Five years of Java");
+
+        assertThat(cache.keyFor("other-model", "prompt", OPTIONS, "Java developer", "Five years of Java")).isNotEqualTo(key);
+        assertThat(cache.keyFor("model", "edited prompt", OPTIONS, "Java developer", "Five years of Java")).isNotEqualTo(key);
+        assertThat(cache.keyFor("model", "prompt", Map.of("temperature", 0.7), "Java developer", "Five years of Java"))
+                .isNotEqualTo(key);
+        assertThat(cache.keyFor("model", "prompt", OPTIONS, "Go developer", "Five years of Java")).isNotEqualTo(key);
+        // Fields are separated, so text cannot shift from one input into the other.
+        assertThat(cache.keyFor("model", "prompt", OPTIONS, "Java developer Five", "years of Java")).isNotEqualTo(key);
+    }
+
+    @Test
+    void servesPutReportsFromMemoryWithoutTouchingTheDatabase() {
+        cache.put("key", "report");
+
+        assertThat(cache.get("key")).contains("report");
+        verify(repository, never()).findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(any(), any());
+        assertThat(lookups("hit", "memory")).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToHistoryAndPromotesTheHitIntoMemory() {
+        CvProcessRecord record = new CvProcessRecord();
+        record.setFeedbackReport("stored report");
+        when(repository.findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(eq("key"), any(OffsetDateTime.class)))
+                .thenReturn(Optional.of(record));
+
+        assertThat(cache.get("key")).contains("stored report");
+        assertThat(cache.get("key")).contains("stored report");
+
+        verify(repository, times(1)).findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(eq("key"), any());
+        assertThat(lookups("hit", "database")).isEqualTo(1);
+        assertThat(lookups("hit", "memory")).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresBlankStoredReports() {
+        CvProcessRecord record = new CvProcessRecord();
+        record.setFeedbackReport("  ");
+        when(repository.findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(eq("key"), any(OffsetDateTime.class)))
+                .thenReturn(Optional.of(record));
+
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(lookups("miss", "none")).isEqualTo(1);
+    }
+
+    @Test
+    void treatsDatabaseFailuresAsMisses() {
+        when(repository.findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(eq("key"), any(OffsetDateTime.class)))
+                .thenThrow(new IllegalStateException("database down"));
+
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(lookups("miss", "none")).isEqualTo(1);
+    }
+
+    @Test
+    void skipsTheDatabaseTierWhenDisabled() {
+        cache = cache(false);
+
+        assertThat(cache.get("key")).isEmpty();
+        verify(repository, never()).findFirstByCacheKeyAndCreatedAtAfterOrderByCreatedAtDesc(any(), any());
+    }
+
+    @Test
+    void neverStoresBlankReportsOrNullKeys() {
+        cache.put("key", " ");
+        cache.put(null, "report");
+
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(cache.get(null)).isEmpty();
+    }
+
+    private FeedbackReportCache cache(boolean databaseTierEnabled) {
+        return new FeedbackReportCache(repository, meterRegistry, 10, Duration.ofHours(1),
+                databaseTierEnabled, Duration.ofDays(7));
+    }
+
+    private double lookups(String result, String tier) {
+        return meterRegistry.get("feedback.cache.lookups").tag("result", result).tag("tier", tier).counter().count();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.entity.CvProcessRecord;
+import com.example.cv_rewriter.entity.JobDescription;
+import com.example.cv_rewriter.repository.JobDescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobDescriptionStoreTest {
+
+    private final JobDescriptionRepository repository = mock(JobDescriptionRepository.class);
+    private final JobDescriptionStore store = new JobDescriptionStore(repository);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findByContentHash(anyString())).thenReturn(Optional.empty());
+        when(repository.save(any(JobDescription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void storesEachDistinctTextOnceKeyedBySha256() throws NoSuchAlgorithmException {
+        CvProcessRecord first = record("Senior Java developer");
+        CvProcessRecord second = record("Senior Java developer");
+        CvProcessRecord other = record("Go developer");
+
+        store.attach(List.of(first, second, other));
+
+        ArgumentCaptor<JobDescription> saved = ArgumentCaptor.forClass(JobDescription.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(JobDescription::getContentHash)
+                .containsExactly(sha256("Senior Java developer"), sha256("Go developer"));
+        assertThat(first.getStoredJobDescription()).isSameAs(second.getStoredJobDescription());
+        assertThat(first.getJobDescription()).isEqualTo("Senior Java developer");
+        assertThat(other.getStoredJobDescription().getContent()).isEqualTo("Go developer");
+    }
+
+    @Test
+    void reusesTextAlreadyStored() throws NoSuchAlgorithmException {
+        JobDescription existing = new JobDescription(sha256("Senior Java developer"), "Senior Java developer");
+        when(repository.findByContentHash(sha256("Senior Java developer"))).thenReturn(Optional.of(existing));
+        CvProcessRecord record = record("Senior Java developer");
+
+        store.attach(List.of(record));
+
+        assertThat(record.getStoredJobDescription()).isSameAs(existing);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void treatsTextThatDiffersOnlyInWhitespaceAsDifferent() {
+        CvProcessRecord record = record("Senior Java developer");
+        CvProcessRecord padded = record("Senior Java developer ");
+
+        store.attach(List.of(record, padded));
+
+        assertThat(record.getStoredJobDescription()).isNotSameAs(padded.getStoredJobDescription());
+    }
+
+    @Test
+    void skipsRecordsWithoutTextOrAlreadyAttached() {
+        JobDescription attached = new JobDescription("hash", "Attached");
+        CvProcessRecord withStored = record(null);
+        withStored.setStoredJobDescription(attached);
+        CvProcessRecord withoutText = record(null);
+
+        store.attach(List.of(withStored, withoutText));
+
+        assertThat(withStored.getStoredJobDescription()).isSameAs(attached);
+        assertThat(withoutText.getStoredJobDescription()).isNull();
+        verify(repository, never()).findByContentHash(anyString());
+        verify(repository, never()).save(any());
+    }
+
+    private static CvProcessRecord record(String jobDescription) {
+        CvProcessRecord record = new CvProcessRecord();
+        record.setJobDescription(jobDescription);
+        return record;
+    }
+
+    private static String sha256(String text) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
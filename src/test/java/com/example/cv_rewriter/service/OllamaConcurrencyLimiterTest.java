@@ -0,0 +1,135 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.cv_rewriter.service.FairShareQueueTest.awaitCondition;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// One request in flight and one waiting per model; a third is rejected.
+class OllamaConcurrencyLimiterTest {
+
+    private static final String MODEL = "test-model";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void capacityIsRestoredAfterAQueueFullRejection() throws Exception {
+        OllamaConcurrencyLimiter limiter = limiter(Duration.ofSeconds(10));
+        OllamaConcurrencyLimiter.Permit held = limiter.acquire(MODEL);
+        CompletableFuture<OllamaConcurrencyLimiter.Permit> waiter = acquireAsync(limiter);
+        awaitCondition(() -> waiting() == 1);
+
+        assertThatThrownBy(() -> limiter.acquire(MODEL)).isInstanceOf(CapacityExceededException.class);
+
+        held.close();
+        waiter.get(10, TimeUnit.SECONDS).close();
+        assertCapacityRestored(limiter);
+    }
+
+    @Test
+    void capacityIsRestoredAfterAWaitTimeout() throws Exception {
+        OllamaConcurrencyLimiter limiter = limiter(Duration.ofMillis(50));
+        OllamaConcurrencyLimiter.Permit held = limiter.acquire(MODEL);
+
+        assertThatThrownBy(() -> limiter.acquire(MODEL)).isInstanceOf(CapacityExceededException.class);
+        assertThat(waiting()).isZero();
+        held.close();
+        assertThat(inFlight()).isZero();
+
+        OllamaConcurrencyLimiter.Permit again = limiter.acquire(MODEL);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> limiter.acquire(MODEL)).isInstanceOf(CapacityExceededException.class);
+        // Turned away after waiting, not straight away for a full queue: the timed-out request gave its place back.
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+        again.close();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void capacityIsRestoredAfterAnInterruptedWait() throws Exception {
+        OllamaConcurrencyLimiter limiter = limiter(Duration.ofSeconds(10));
+        OllamaConcurrencyLimiter.Permit held = limiter.acquire(MODEL);
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        CompletableFuture<Boolean> interruptKept = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire(MODEL).close();
+                failure.complete(null);
+            } catch (Throwable throwable) {
+                failure.complete(throwable);
+            }
+            interruptKept.complete(Thread.currentThread().isInterrupted());
+        });
+        waiter.start();
+        awaitCondition(() -> waiting() == 1);
+
+        waiter.interrupt();
+
+        assertThat(failure.get(10, TimeUnit.SECONDS)).isInstanceOf(CapacityExceededException.class);
+        assertThat(interruptKept.get(10, TimeUnit.SECONDS)).isTrue();
+        held.close();
+        assertCapacityRestored(limiter);
+    }
+
+    @Test
+    void closingAPermitTwiceReleasesItOnce() throws Exception {
+        OllamaConcurrencyLimiter limiter = limiter(Duration.ofSeconds(10));
+        OllamaConcurrencyLimiter.Permit permit = limiter.acquire(MODEL);
+
+        permit.close();
+        permit.close();
+
+        assertCapacityRestored(limiter);
+    }
+
+    // Exactly one request can be in flight and one more can wait, so neither counter leaked in either direction.
+    private void assertCapacityRestored(OllamaConcurrencyLimiter limiter) throws Exception {
+        assertThat(inFlight()).isZero();
+        assertThat(waiting()).isZero();
+
+        OllamaConcurrencyLimiter.Permit held = limiter.acquire(MODEL);
+        CompletableFuture<OllamaConcurrencyLimiter.Permit> waiter = acquireAsync(limiter);
+        awaitCondition(() -> waiting() == 1 || waiter.isDone());
+        assertThat(waiter).isNotDone();
+
+        assertThatThrownBy(() -> limiter.acquire(MODEL)).isInstanceOf(CapacityExceededException.class);
+
+        held.close();
+        waiter.get(10, TimeUnit.SECONDS).close();
+        assertThat(inFlight()).isZero();
+    }
+
+    private CompletableFuture<OllamaConcurrencyLimiter.Permit> acquireAsync(OllamaConcurrencyLimiter limiter) {
+        CompletableFuture<OllamaConcurrencyLimiter.Permit> permit = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                permit.complete(limiter.acquire(MODEL));
+            } catch (Throwable throwable) {
+                permit.completeExceptionally(throwable);
+            }
+        });
+        thread.start();
+        return permit;
+    }
+
+    private OllamaConcurrencyLimiter limiter(Duration maxWait) {
+        return new OllamaConcurrencyLimiter(meterRegistry, 1, "", 1, maxWait, Duration.ofSeconds(15),
+                "standard=1", "", "standard");
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("ollama.admission.in_flight").tag("model", MODEL).gauge().value();
+    }
+
+    private double waiting() {
+        return meterRegistry.get("ollama.admission.waiting").tag("model", MODEL).gauge().value();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.model.FeedbackReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OllamaServiceTest {
+
+    private static final String JOB_DESCRIPTION = "Java developer";
+    private static final String CV = "Five years of Java";
+
+    private final OllamaClient ollamaClient = mock(OllamaClient.class);
+    private final OllamaEndpointPool ollamaEndpointPool = mock(OllamaEndpointPool.class);
+    // Responses handed out by the endpoint pool, one per generation, completed by the test.
+    private final Queue<CompletableFuture<JsonNode>> generations = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch generationStarted = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeedbackReportCache feedbackReportCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        feedbackReportCache = new FeedbackReportCache(null, meterRegistry, 10, Duration.ofMinutes(1), false, Duration.ZERO);
+        when(ollamaEndpointPool.<JsonNode>executeAsync(any())).thenAnswer(invocation -> {
+            generationStarted.countDown();
+            return generations.remove();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void identicalConcurrentRequestsShareOneGeneration() throws Exception {
+        CompletableFuture<JsonNode> generation = new CompletableFuture<>();
+        generations.add(generation);
+        OllamaService service = service(feedbackReportCache);
+
+        CompletableFuture<FeedbackReport> leader = buildAsync(service);
+        assertThat(generationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<FeedbackReport> follower = buildAsync(service);
+        awaitCoalesced(1);
+        generation.complete(response("Strong match."));
+
+        assertThat(leader.get(5, TimeUnit.SECONDS).text()).isEqualTo("Strong match.");
+        assertThat(follower.get(5, TimeUnit.SECONDS).text()).isEqualTo("Strong match.");
+        verify(ollamaEndpointPool, times(1)).executeAsync(any());
+        assertThat(coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void followerGeneratesItselfWhenTheLeaderIsTurnedAwayAndCountsAsCoalescedOnce() throws Exception {
+        CompletableFuture<JsonNode> refused = new CompletableFuture<>();
+        generations.add(refused);
+        generations.add(CompletableFuture.completedFuture(response("Strong match.")));
+        OllamaService service = service(feedbackReportCache);
+
+        CompletableFuture<FeedbackReport> leader = buildAsync(service);
+        assertThat(generationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<FeedbackReport> follower = buildAsync(service);
+        awaitCoalesced(1);
+        refused.completeExceptionally(new CapacityExceededException("busy", Duration.ofSeconds(15)));
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(CapacityExceededException.class);
+        assertThat(follower.get(5, TimeUnit.SECONDS).text()).isEqualTo("Strong match.");
+        verify(ollamaEndpointPool, times(2)).executeAsync(any());
+        assertThat(coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void reusesAReportCachedBetweenTheLookupAndJoiningTheRegistry() {
+        FeedbackReportCache racingCache = spy(feedbackReportCache);
+        // The lookup misses, and the report is cached before this request reaches the in-flight registry,
+        // as when an identical generation finishes in between.
+        doAnswer(invocation -> {
+            racingCache.put(invocation.getArgument(0), "Strong match.");
+            return Optional.empty();
+        }).when(racingCache).get(anyString());
+        List<String> tokens = new ArrayList<>();
+
+        FeedbackReport report = service(racingCache).buildFeedbackReport(JOB_DESCRIPTION, CV, tokens::add);
+
+        assertThat(report.text()).isEqualTo("Strong match.");
+        assertThat(report.partial()).isFalse();
+        assertThat(tokens).containsExactly("Strong match.");
+        verify(ollamaEndpointPool, never()).execute(any(), any());
+        verify(ollamaEndpointPool, never()).executeAsync(any());
+    }
+
+    private CompletableFuture<FeedbackReport> buildAsync(OllamaService service) {
+        return CompletableFuture.supplyAsync(() -> service.buildFeedbackReport(JOB_DESCRIPTION, CV), callers);
+    }
+
+    private void awaitCoalesced(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(coalesced()).isEqualTo(expected);
+    }
+
+    private double coalesced() {
+        Counter counter = meterRegistry.find("ollama.generate.coalesced").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private OllamaService service(FeedbackReportCache cache) {
+        OllamaConcurrencyLimiter limiter = new OllamaConcurrencyLimiter(meterRegistry, 16, "", 64,
+                Duration.ofSeconds(30), Duration.ofSeconds(15), "standard=1", "", "standard");
+        return new OllamaService(ollamaClient, ollamaEndpointPool, limiter, cache, new PipelineMetrics(meterRegistry),
+                new CvTextNormalizer(2500, 800, List.of()), "test-model", "30m", false, Duration.ofSeconds(1),
+                false, 256, Duration.ofSeconds(5), Duration.ofSeconds(15));
+    }
+
+    private static JsonNode response(String text) {
+        return new ObjectMapper().createObjectNode().put("response", text).put("done", true);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.CapacityExceededException;
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfTextExtractorTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final TaskExecutor countingExecutor = task -> {
+        submitted.incrementAndGet();
+        task.run();
+    };
+
+    @Test
+    void readsEveryPageInOrderAcrossRanges() throws IOException {
+        Path pdf = pdf(10);
+        PdfTextExtractor extractor = new PdfTextExtractor(countingExecutor, 20, 100_000, 2, 4, Duration.ofSeconds(30));
+
+        String text = extractor.extract(pdf);
+
+        for (int page = 1; page <= 10; page++) {
+            assertThat(text).contains("Marker page " + page + " ");
+        }
+        assertThat(text.indexOf("Marker page 3 ")).isLessThan(text.indexOf("Marker page 4 "));
+        assertThat(text.indexOf("Marker page 9 ")).isLessThan(text.indexOf("Marker page 10 "));
+        assertThat(text.split(CvTextNormalizer.PAGE_BREAK, -1)).hasSize(11);
+    }
+
+    @Test
+    void opensTheDocumentOncePerParallelRange() throws IOException {
+        Path pdf = pdf(10);
+        // Ten pages over at most four ranges: 1-3 on the first task, then 4-6, 7-9 and 10.
+        new PdfTextExtractor(countingExecutor, 20, 100_000, 2, 4, Duration.ofSeconds(30)).extract(pdf);
+
+        assertThat(submitted).hasValue(4);
+    }
+
+    @Test
+    void stopsAtThePageCap() throws IOException {
+        Path pdf = pdf(10);
+        PdfTextExtractor extractor = new PdfTextExtractor(countingExecutor, 3, 100_000, 2, 4, Duration.ofSeconds(30));
+
+        String text = extractor.extract(pdf);
+
+        assertThat(text).contains("Marker page 3 ").doesNotContain("Marker page 4 ");
+    }
+
+    @Test
+    void truncatesAtTheCharacterCap() throws IOException {
+        Path pdf = pdf(5);
+        PdfTextExtractor extractor = new PdfTextExtractor(countingExecutor, 20, 30, 1, 4, Duration.ofSeconds(30));
+
+        assertThat(extractor.extract(pdf)).hasSize(30).startsWith("Marker page 1 ");
+    }
+
+    @Test
+    void failsOncePastTheDeadline() throws IOException {
+        Path pdf = pdf(3);
+        PdfTextExtractor extractor = new PdfTextExtractor(countingExecutor, 20, 100_000, 1, 4, Duration.ZERO);
+
+        assertThatThrownBy(() -> extractor.extract(pdf))
+                .isInstanceOf(PdfProcessingException.class)
+                .hasMessageContaining("took too long");
+    }
+
+    @Test
+    void oneDeadlineCoversRangesThatNeverRun() throws IOException {
+        Path pdf = pdf(6);
+        // Only the first task gets a thread; the ranges it fans out are never run.
+        TaskExecutor firstTaskOnly = task -> {
+            if (submitted.getAndIncrement() == 0) {
+                new Thread(task).start();
+            }
+        };
+        PdfTextExtractor extractor = new PdfTextExtractor(firstTaskOnly, 20, 100_000, 2, 4, Duration.ofMillis(300));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> extractor.extract(pdf))
+                .isInstanceOf(PdfProcessingException.class)
+                .hasMessageContaining("took too long");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(submitted.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void reportsABusyExtractorWhenTheFirstTaskIsRejected() throws IOException {
+        Path pdf = pdf(1);
+        TaskExecutor rejecting = task -> {
+            throw new TaskRejectedException("full");
+        };
+        PdfTextExtractor extractor = new PdfTextExtractor(rejecting, 20, 100_000, 2, 4, Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> extractor.extract(pdf)).isInstanceOf(CapacityExceededException.class);
+    }
+
+    @Test
+    void reportsABusyExtractorWhenAFurtherRangeIsRejected() throws IOException {
+        Path pdf = pdf(6);
+        TaskExecutor firstTaskOnly = task -> {
+            if (submitted.getAndIncrement() > 0) {
+                throw new TaskRejectedException("full");
+            }
+            task.run();
+        };
+        PdfTextExtractor extractor = new PdfTextExtractor(firstTaskOnly, 20, 100_000, 2, 4, Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> extractor.extract(pdf)).isInstanceOf(CapacityExceededException.class);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotPdfs() throws IOException {
+        Path notPdf = Files.writeString(directory.resolve("cv.pdf"), "not a pdf");
+        PdfTextExtractor extractor = new PdfTextExtractor(countingExecutor, 20, 100_000, 2, 4, Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> extractor.extract(notPdf))
+                .isInstanceOf(PdfProcessingException.class)
+                .hasMessageContaining("Failed to read PDF content");
+    }
+
+    private Path pdf(int pages) throws IOException {
+        Path file = directory.resolve("cv-" + pages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 1; page <= pages; page++) {
+                PDPage pdPage = new PDPage();
+                document.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Marker page " + page + " of the test CV");
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
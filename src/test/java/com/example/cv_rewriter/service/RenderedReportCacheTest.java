@@ -0,0 +1,146 @@
+package com.example.cv_rewriter.service;
+
+import com.example.cv_rewriter.exceptions.PdfProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RenderedReportCacheTest {
+
+    private static final String REPORT_A = report('A');
+    private static final String REPORT_B = report('B');
+    private static final String REPORT_C = report('C');
+
+    @TempDir
+    Path directory;
+
+    private final FeedbackReportService feedbackReportService = new FeedbackReportService(List.of(), DataSize.ofMegabytes(1));
+    private SimpleMeterRegistry meterRegistry;
+    private long reportSize;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reportSize = feedbackReportService.renderFeedbackReportPdf(REPORT_A).length;
+    }
+
+    @Test
+    void servesTheRenderedPdfFromDiskOnTheSecondRequest() throws IOException {
+        RenderedReportCache cache = cache(DataSize.ofMegabytes(1));
+
+        byte[] first = download(cache, REPORT_A);
+        byte[] second = download(cache, REPORT_A);
+
+        assertThat(second).isEqualTo(first).startsWith("%PDF".getBytes());
+        assertThat(lookups("miss")).isEqualTo(1);
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(pdfFiles()).hasSize(1);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedReportOncePastTheSizeCap() throws IOException {
+        RenderedReportCache cache = cache(DataSize.ofBytes(reportSize * 5 / 2));
+
+        cache.prepare(REPORT_A);
+        cache.prepare(REPORT_B);
+        download(cache, REPORT_A);
+        cache.prepare(REPORT_C);
+
+        assertThat(pdfFiles()).hasSize(2);
+        assertThat(cacheSize()).isLessThanOrEqualTo(reportSize * 5 / 2);
+
+        cache.prepare(REPORT_A);
+        cache.prepare(REPORT_C);
+        assertThat(lookups("hit")).isEqualTo(3);
+        cache.prepare(REPORT_B);
+        assertThat(lookups("miss")).isEqualTo(4);
+    }
+
+    @Test
+    void keepsAReportLargerThanTheWholeCap() throws IOException {
+        RenderedReportCache cache = cache(DataSize.ofBytes(1));
+
+        cache.prepare(REPORT_A);
+        cache.prepare(REPORT_B);
+
+        assertThat(pdfFiles()).hasSize(1);
+        assertThat(download(cache, REPORT_B)).isNotEmpty();
+        assertThat(lookups("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void rendersAgainWhenACachedFileWasDeleted() throws IOException {
+        RenderedReportCache cache = cache(DataSize.ofMegabytes(1));
+        cache.prepare(REPORT_A);
+        for (Path file : pdfFiles()) {
+            Files.delete(file);
+        }
+
+        assertThat(download(cache, REPORT_A)).startsWith("%PDF".getBytes());
+        assertThat(lookups("miss")).isEqualTo(2);
+        assertThat(pdfFiles()).hasSize(1);
+    }
+
+    @Test
+    void picksUpRenderedFilesAfterARestartAndDiscardsPartialOnes() throws IOException {
+        cache(DataSize.ofMegabytes(1)).prepare(REPORT_A);
+        Path partial = Files.writeString(directory.resolve("abc-123.rendering"), "partial");
+
+        meterRegistry = new SimpleMeterRegistry();
+        RenderedReportCache restarted = cache(DataSize.ofMegabytes(1));
+        restarted.prepare(REPORT_A);
+
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(cacheSize()).isEqualTo(Files.size(pdfFiles().get(0)));
+        assertThat(partial).doesNotExist();
+    }
+
+    @Test
+    void rejectsBlankReports() throws IOException {
+        RenderedReportCache cache = cache(DataSize.ofMegabytes(1));
+
+        assertThatThrownBy(() -> cache.prepare(" ")).isInstanceOf(PdfProcessingException.class);
+        assertThat(pdfFiles()).isEmpty();
+    }
+
+    private RenderedReportCache cache(DataSize maxSize) throws IOException {
+        return new RenderedReportCache(feedbackReportService, new PipelineMetrics(meterRegistry), meterRegistry,
+                directory.toString(), maxSize);
+    }
+
+    private byte[] download(RenderedReportCache cache, String report) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.writeTo(report, out);
+        return out.toByteArray();
+    }
+
+    private List<Path> pdfFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".pdf")).toList();
+        }
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("pdf.report_cache.lookups").tag("result", result).counter().count();
+    }
+
+    private double cacheSize() {
+        return meterRegistry.get("pdf.report_cache.size").gauge().value();
+    }
+
+    private static String report(char variant) {
+        return ("Report " + variant + "\n- Quantify the impact of each role.\n").repeat(40);
+    }
+}
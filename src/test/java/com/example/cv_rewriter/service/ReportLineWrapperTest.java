@@ -0,0 +1,143 @@
+package com.example.cv_rewriter.service;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportLineWrapperTest {
+
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final float FONT_SIZE = 12f;
+    private static final float MAX_WIDTH = 200f;
+    private static final String[] VOCABULARY = {
+            "experience", "leadership", "delivered", "Kubernetes", "stakeholders", "quantify", "impact", "a",
+            "responsible", "for", "the", "migration", "of", "services", "and", "reduced", "latency", "by", "40%",
+            "internationalization-and-localization-workstreams"
+    };
+    private static final String[] PREFIXES = {"", "- ", "* ", "• ", "  ", "    - "};
+
+    private final ReportLineWrapper wrapper = new ReportLineWrapper(FONT, FONT_SIZE, MAX_WIDTH);
+
+    @Test
+    void matchesTheLegacyWrappingLineForLine() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder line = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+            int words = random.nextInt(60);
+            for (int w = 0; w < words; w++) {
+                line.append(VOCABULARY[random.nextInt(VOCABULARY.length)]).append(random.nextInt(5) == 0 ? "  " : " ");
+            }
+
+            String text = line.toString();
+            assertThat(wrapper.wrap(text)).as("wrapping %s", text).isEqualTo(legacyWrap(text));
+        }
+    }
+
+    @Test
+    void indentsBulletContinuationsUnderTheText() throws IOException {
+        List<String> wrapped = wrapper.wrap("- " + "delivered impact ".repeat(20));
+
+        assertThat(wrapped).hasSizeGreaterThan(1);
+        assertThat(wrapped.get(0)).startsWith("- delivered");
+        assertThat(wrapped.subList(1, wrapped.size())).allSatisfy(line -> assertThat(line).matches("  \\S.*"));
+        for (String line : wrapped) {
+            assertThat(FONT.getStringWidth(line) / 1000 * FONT_SIZE).isLessThanOrEqualTo(MAX_WIDTH);
+        }
+    }
+
+    @Test
+    void keepsWordsLongerThanTheLineWhole() {
+        String word = "x".repeat(200);
+
+        assertThat(wrapper.wrap("short " + word + " tail")).containsExactly("short", word, "tail");
+    }
+
+    @Test
+    void returnsNothingForBlankLinesAndTheBareBulletForEmptyItems() {
+        assertThat(wrapper.wrap("   ")).isEmpty();
+        assertThat(wrapper.wrap("- ")).containsExactly("-");
+    }
+
+    @Test
+    void sanitizesToPrintableAscii() {
+        assertThat(ReportLineWrapper.sanitize("• café\tlatte’s")).isEqualTo("- caf lattes");
+        assertThat(ReportLineWrapper.sanitize(null)).isEmpty();
+    }
+
+    // The wrapping FeedbackReportService did before ReportLineWrapper: rebuild and re-measure a candidate string
+    // per word, then sanitize each line at render time.
+    private List<String> legacyWrap(String line) throws IOException {
+        if (line.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        String trimmed = line.stripTrailing();
+        int firstContentIndex = 0;
+        while (firstContentIndex < trimmed.length() && Character.isWhitespace(trimmed.charAt(firstContentIndex))) {
+            firstContentIndex++;
+        }
+        String leadingWhitespace = trimmed.substring(0, firstContentIndex);
+        String body = trimmed.substring(firstContentIndex);
+        String bullet = "";
+        if (body.startsWith("- ") || body.startsWith("* ") || body.startsWith("• ")) {
+            bullet = body.substring(0, 2);
+            body = body.substring(2).stripLeading();
+        }
+        String firstLinePrefix = leadingWhitespace + bullet;
+        String continuationPrefix = bullet.isEmpty() ? leadingWhitespace : leadingWhitespace + "  ";
+
+        List<String> wrapped = new ArrayList<>();
+        String[] words = body.isEmpty() ? new String[0] : body.split("\\s+");
+        StringBuilder current = new StringBuilder(firstLinePrefix);
+        for (String word : words) {
+            if (word.isBlank()) {
+                continue;
+            }
+            String candidate = current.length() == firstLinePrefix.length() ? current + word : current + " " + word;
+            if (FONT.getStringWidth(legacySanitize(candidate)) / 1000 * FONT_SIZE > MAX_WIDTH) {
+                if (current.length() > firstLinePrefix.length()) {
+                    wrapped.add(current.toString());
+                    current = new StringBuilder(continuationPrefix).append(word);
+                } else {
+                    current.append(word);
+                }
+            } else {
+                if (current.length() > firstLinePrefix.length()) {
+                    current.append(' ');
+                }
+                current.append(word);
+            }
+        }
+        if (current.length() > 0) {
+            wrapped.add(current.toString());
+        } else if (!firstLinePrefix.isEmpty()) {
+            wrapped.add(firstLinePrefix.stripTrailing());
+        }
+
+        List<String> rendered = new ArrayList<>();
+        for (String wrappedLine : wrapped) {
+            rendered.add(legacySanitize(wrappedLine));
+        }
+        return rendered;
+    }
+
+    private String legacySanitize(String text) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '•') {
+                builder.append('-');
+            } else if (c >= 32 && c <= 126) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.cv_rewriter.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestRateLimiterTest {
+
+    private static final String USER = "someone@example.com";
+    private static final String IP = "203.0.113.7";
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+    private SimpleMeterRegistry meterRegistry;
+    private RequestRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // User: 5 burst, one token every 6s. IP: 10 burst, one every 3s. Batch: 2 burst, one every 30s.
+        limiter = new RequestRateLimiter(meterRegistry, 5, 10, 10, 20, 2, 2, Duration.ofMinutes(10), clock::get);
+    }
+
+    @Test
+    void allowsBurstThenRejectsWithTimeUntilNextToken() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+        }
+
+        assertThat(limiter.tryAcquire(USER, null)).contains(Duration.ofSeconds(6));
+        assertThat(meterRegistry.get("cv.rate_limit.rejected").tag("scope", "user").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        drainUser();
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(USER, null)).contains(Duration.ofSeconds(6));
+        }
+
+        advance(Duration.ofSeconds(6));
+        assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        drainUser();
+
+        advance(Duration.ofMillis(5_500));
+        assertThat(limiter.tryAcquire(USER, null)).contains(Duration.ofMillis(500));
+
+        advance(Duration.ofMillis(500));
+        assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+        assertThat(limiter.tryAcquire(USER, null)).contains(Duration.ofSeconds(6));
+
+        // Refill is capped at the burst.
+        advance(Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+        }
+        assertThat(limiter.tryAcquire(USER, null)).isPresent();
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertThat(RequestRateLimiter.retryAfterSeconds(Duration.ofNanos(1))).isEqualTo(1);
+        assertThat(RequestRateLimiter.retryAfterSeconds(Duration.ofMillis(500))).isEqualTo(1);
+        assertThat(RequestRateLimiter.retryAfterSeconds(Duration.ofSeconds(6))).isEqualTo(6);
+        assertThat(RequestRateLimiter.retryAfterSeconds(Duration.ofSeconds(6).plusNanos(1))).isEqualTo(7);
+        assertThat(RequestRateLimiter.retryAfterSeconds(Duration.ZERO)).isEqualTo(1);
+    }
+
+    @Test
+    void checksIpBeforeUserSoAFloodedAddressLeavesTheUserAllowance() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("other" + i + "@example.com", IP)).isEmpty();
+        }
+
+        assertThat(limiter.tryAcquire(USER, IP)).contains(Duration.ofSeconds(3));
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(USER, "198.51.100.1")).isEmpty();
+        }
+    }
+
+    @Test
+    void batchesAlsoDrawFromTheSmallerBatchBucket() {
+        assertThat(limiter.tryAcquire(USER, IP, true)).isEmpty();
+        assertThat(limiter.tryAcquire(USER, IP, true)).isEmpty();
+        assertThat(limiter.tryAcquire(USER, IP, true)).contains(Duration.ofSeconds(30));
+
+        // Single submissions still have their own allowance left.
+        assertThat(limiter.tryAcquire(USER, IP)).isEmpty();
+        assertThat(meterRegistry.get("cv.rate_limit.rejected").tag("scope", "batch").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void requestsRejectedForTheUserGiveBackTheirAddressAndBatchTokens() {
+        drainUser();
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(USER, IP, true)).contains(Duration.ofSeconds(6));
+        }
+
+        // The address still has its whole burst for other users.
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("other" + i + "@example.com", IP)).isEmpty();
+        }
+
+        // And the user's batch allowance is untouched once the user bucket refills.
+        advance(Duration.ofSeconds(12));
+        assertThat(limiter.tryAcquire(USER, null, true)).isEmpty();
+        assertThat(limiter.tryAcquire(USER, null, true)).isEmpty();
+    }
+
+    @Test
+    void evictsOnlyBucketsThatHaveBeenFullForTheIdlePeriod() {
+        drainUser();
+        limiter.tryAcquire("quiet@example.com", null);
+
+        // The drained bucket is full again 30s from now, the other one 6s from now.
+        advance(Duration.ofMinutes(10).plusSeconds(10));
+        limiter.evictIdle();
+        assertThat(trackedUserBuckets()).isEqualTo(1);
+
+        advance(Duration.ofSeconds(30));
+        limiter.evictIdle();
+        assertThat(trackedUserBuckets()).isZero();
+    }
+
+    @Test
+    void evictionKeepsBucketsThatStillLimit() {
+        drainUser();
+
+        limiter.evictIdle();
+
+        assertThat(trackedUserBuckets()).isEqualTo(1);
+        assertThat(limiter.tryAcquire(USER, null)).isPresent();
+    }
+
+    @Test
+    void evictedBucketComesBackFullAsItWouldHaveBeen() {
+        drainUser();
+        advance(Duration.ofMinutes(11));
+        limiter.evictIdle();
+        assertThat(trackedUserBuckets()).isZero();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+        }
+        assertThat(limiter.tryAcquire(USER, null)).contains(Duration.ofSeconds(6));
+    }
+
+    private void drainUser() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(USER, null)).isEmpty();
+        }
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    private double trackedUserBuckets() {
+        return meterRegistry.get("cv.rate_limit.buckets").tag("scope", "user").gauge().value();
+    }
+}